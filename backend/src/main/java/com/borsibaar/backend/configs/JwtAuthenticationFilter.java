@@ -1,6 +1,9 @@
 package com.borsibaar.backend.configs;
 
 import com.borsibaar.backend.service.JwtService;
+import com.borsibaar.backend.service.PrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,21 +21,32 @@ import org.springframework.web.servlet.HandlerExceptionResolver;
 
 import java.io.IOException;
 
+/**
+ * Authenticates bearer tokens. Timed as {@code security.jwt.filter} by owner and outcome (the
+ * filter's own work, not the rest of the chain); principal loads on a cache miss are timed as
+ * {@code security.user.lookup}.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
     private final HandlerExceptionResolver exceptionResolver;
+    private final MeterRegistry meterRegistry;
 
     public JwtAuthenticationFilter(
             JwtService jwtService,
             UserDetailsService userDetailsService,
-            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver
+            PrincipalCache principalCache,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+            MeterRegistry meterRegistry
     ) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
         this.exceptionResolver = exceptionResolver;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -49,14 +63,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean timed = false;
         try {
             final String jwt = authHeader.substring(7); // Remove "Bearer " prefix
-            final String userEmail = jwtService.extractUsername(jwt);
+            // signature and expiry are checked here, once per request (or once per token while cached)
+            final JwtService.VerifiedToken token = jwtService.verify(jwt);
+            final String userEmail = token.subject();
 
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+                UserDetails userDetails = principalCache.get(userEmail, token.issuedAt(), () -> loadUser(userEmail));
 
-                if (jwtService.isTokenValid(jwt, userDetails.getUsername())) {
+                if (userEmail.equals(userDetails.getUsername())) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails,
@@ -68,10 +86,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
             }
 
+            var authentication = SecurityContextHolder.getContext().getAuthentication();
+            sample.stop(meterRegistry.timer("security.jwt.filter",
+                    "owner", authentication != null && authentication.getPrincipal() instanceof UserDetails user
+                            ? MetricsConfiguration.ownerTag(user) : MetricsConfiguration.NO_OWNER,
+                    "outcome", authentication != null ? "authenticated" : "anonymous"));
+            timed = true;
+
             filterChain.doFilter(request, response);
 
         } catch (Exception ex) {
+            if (!timed) {
+                sample.stop(meterRegistry.timer("security.jwt.filter",
+                        "owner", MetricsConfiguration.NO_OWNER, "outcome", "rejected"));
+            }
             exceptionResolver.resolveException(request, response, null, ex);
         }
     }
+
+    private UserDetails loadUser(String email) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        UserDetails user = userDetailsService.loadUserByUsername(email);
+        sample.stop(meterRegistry.timer("security.user.lookup", "owner", MetricsConfiguration.ownerTag(user)));
+        return user;
+    }
 }
@@ -0,0 +1,31 @@
+package com.borsibaar.backend.configs;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Matches requests that came in on the actuator's own port, once {@code management.server.port}
+ * has put it on one. Until then, and when the actuator shares the application's port, it matches
+ * nothing.
+ */
+@Component
+public class ManagementPortMatcher implements RequestMatcher, ApplicationListener<WebServerInitializedEvent> {
+
+    private volatile int port = -1;
+
+    // The management context is a child, so its server's event reaches us too
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        if ("management".equals(event.getApplicationContext().getServerNamespace())) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        return port > 0 && request.getLocalPort() == port;
+    }
+}
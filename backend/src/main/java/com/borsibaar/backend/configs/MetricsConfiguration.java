@@ -0,0 +1,27 @@
+package com.borsibaar.backend.configs;
+
+import com.borsibaar.backend.entity.User;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Metric defaults (Prometheus endpoint, histograms) from {@code metrics.properties}; any of them
+ * can be overridden in {@code application.properties}. Application meters are tagged with the
+ * owning bar as {@code owner}.
+ */
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfiguration {
+
+    /** Tag value for work that belongs to no single bar. */
+    public static final String NO_OWNER = "none";
+
+    public static String ownerTag(Integer ownerId) {
+        return ownerId == null ? NO_OWNER : ownerId.toString();
+    }
+
+    public static String ownerTag(UserDetails principal) {
+        return principal instanceof User user ? ownerTag(user.getId()) : NO_OWNER;
+    }
+}
@@ -0,0 +1,92 @@
+package com.borsibaar.backend.configs;
+
+import com.borsibaar.backend.entity.PooledSequenceGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+@Configuration
+public class PersistenceConfiguration {
+
+    // table -> sequence of the entities using @PooledSequence
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "orders", "orders_seq",
+            "order_item", "order_item_seq"
+    );
+
+    @Value("${persistence.batch-size:50}")
+    private int batchSize;
+
+    @Value("${persistence.id-allocation-size:50}")
+    private int allocationSize;
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return props -> {
+            props.put(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(batchSize));
+            props.put(AvailableSettings.ORDER_INSERTS, "true");
+            props.put(AvailableSettings.ORDER_UPDATES, "true");
+            props.put(PooledSequenceGenerator.ALLOCATION_SIZE, String.valueOf(allocationSize));
+        };
+    }
+
+    /**
+     * Tables that used to be IDENTITY already hold ids the new sequences know nothing about;
+     * move each sequence past the highest existing id once the schema is up to date.
+     */
+    @Bean
+    public SequenceAlignment sequenceAlignment(EntityManagerFactory emf, JdbcTemplate jdbc) {
+        return new SequenceAlignment(jdbc);
+    }
+
+    /**
+     * {@code orders.total} used to be {@code double precision} and ddl-auto never changes a column's
+     * type; move it to an exact {@code numeric(12, 2)} once, rounding what is there to the cent.
+     */
+    @Bean
+    public MoneyColumns moneyColumns(EntityManagerFactory emf, JdbcTemplate jdbc) {
+        return new MoneyColumns(jdbc);
+    }
+
+    public static class MoneyColumns {
+        private final JdbcTemplate jdbc;
+
+        MoneyColumns(JdbcTemplate jdbc) {
+            this.jdbc = jdbc;
+        }
+
+        @PostConstruct
+        void migrate() {
+            Boolean inexact = jdbc.queryForObject("""
+                    SELECT EXISTS (SELECT 1 FROM information_schema.columns
+                                    WHERE table_schema = current_schema() AND table_name = 'orders'
+                                      AND column_name = 'total' AND data_type = 'double precision')
+                    """, Boolean.class);
+            if (Boolean.TRUE.equals(inexact)) {
+                jdbc.execute("ALTER TABLE orders ALTER COLUMN total TYPE numeric(12, 2) USING round(total::numeric, 2)");
+            }
+        }
+    }
+
+    public static class SequenceAlignment {
+        private final JdbcTemplate jdbc;
+
+        SequenceAlignment(JdbcTemplate jdbc) {
+            this.jdbc = jdbc;
+        }
+
+        @PostConstruct
+        void align() {
+            SEQUENCES.forEach((table, sequence) -> jdbc.queryForList(
+                    "SELECT setval('" + sequence + "', t.max_id) FROM (SELECT MAX(id) AS max_id FROM " + table + ") t"
+                            + " WHERE t.max_id > (SELECT last_value FROM " + sequence + ")"));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.borsibaar.backend.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Read-only service transactions on a streaming replica, switched on by setting
+ * {@code db.replica.url}. The primary pool is still configured through {@code spring.datasource.*};
+ * the replica takes {@code db.replica.username}/{@code password} (the primary's unless set),
+ * {@code db.replica.pool-size} (10), {@code db.replica.max-staleness} (2s),
+ * {@code db.replica.check-interval} (500ms) and {@code db.replica.connection-timeout} (500ms, so
+ * a dead replica fails over quickly), plus any Hikari setting under {@code db.replica.hikari}.
+ * See {@link ReadReplicaDataSource} for how reads are routed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "db.replica.url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    public ReadReplicaDataSource dataSource(DataSourceProperties properties,
+                                            ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                            Environment env) {
+        Binder binder = Binder.get(env);
+
+        // what Boot would have built, had this bean not taken its place
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        if (details != null) {
+            primary.setJdbcUrl(details.getJdbcUrl());
+            primary.setUsername(details.getUsername());
+            primary.setPassword(details.getPassword());
+        }
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(env.getRequiredProperty("db.replica.url"));
+        replica.setUsername(env.getProperty("db.replica.username", primary.getUsername()));
+        replica.setPassword(env.getProperty("db.replica.password", primary.getPassword()));
+        replica.setDriverClassName(primary.getDriverClassName());
+        replica.setMaximumPoolSize(env.getProperty("db.replica.pool-size", Integer.class, 10));
+        replica.setConnectionTimeout(env.getProperty("db.replica.connection-timeout", Duration.class,
+                Duration.ofMillis(500)).toMillis());
+        replica.setReadOnly(true);
+        // start without it, and keep trying, rather than failing the whole application
+        replica.setInitializationFailTimeout(-1);
+        binder.bind("db.replica.hikari", Bindable.ofInstance(replica));
+
+        return new ReadReplicaDataSource(primary, replica,
+                env.getProperty("db.replica.max-staleness", Duration.class, Duration.ofSeconds(2)),
+                env.getProperty("db.replica.check-interval", Duration.class, Duration.ofMillis(500)));
+    }
+
+    @Bean
+    MeterBinder readReplicaMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .map(ReadReplicaConfiguration::unwrap)
+                .filter(ds -> ds != null)
+                .forEach(ds -> {
+                    Gauge.builder("db.replica.staleness.seconds", ds,
+                                    r -> r.staleness() == null ? Double.NaN : r.staleness().toNanos() / 1e9)
+                            .register(registry);
+                    for (ReadReplicaDataSource.Route route : ReadReplicaDataSource.Route.values()) {
+                        FunctionCounter.builder("db.replica.reads", ds, r -> r.routed(route))
+                                .description("Read-only service transactions by where they were sent and why")
+                                .tag("route", route.tag())
+                                .register(registry);
+                    }
+                });
+    }
+
+    // The bean itself sits under the statement counter and, on virtual threads, the connection limiter
+    private static ReadReplicaDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(ReadReplicaDataSource.class) ? dataSource.unwrap(ReadReplicaDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
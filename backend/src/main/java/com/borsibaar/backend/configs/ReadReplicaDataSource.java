@@ -0,0 +1,216 @@
+package com.borsibaar.backend.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends the application's own {@code @Transactional(readOnly = true)} service methods to a
+ * streaming replica while it is fresh enough, and everything else to the primary.
+ * <p>
+ * Connections are handed out lazily, so the choice is made at a transaction's first statement,
+ * when its read-only flag is known. Read-only transactions that Spring Data opens for inherited
+ * repository methods stay on the primary; so does anything run inside {@link #onPrimary}.
+ * <p>
+ * Freshness is measured in WAL positions rather than replay timestamps, which stop moving when
+ * the primary is idle: every {@code checkInterval} the primary's current LSN is sampled, and the
+ * replica is fresh as of the newest sample it has replayed. Past {@code maxStaleness}, or while
+ * the replica cannot be reached, reads fall back to the primary. A replica URL pointing at a
+ * server that is not in recovery counts as always fresh, which is handy for local runs.
+ */
+public class ReadReplicaDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaDataSource.class);
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    /** Why a read-only connection went where it did. */
+    public enum Route {
+        REPLICA, PINNED, STALE, DOWN;
+
+        public String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private record Sample(long at, long lsn) {
+    }
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final long maxStalenessNanos;
+    private final ScheduledExecutorService lagChecker;
+
+    // touched by the checker thread only
+    private final Deque<Sample> samples = new ArrayDeque<>();
+
+    private volatile long freshAsOf;
+    private volatile boolean checked;
+    private volatile boolean down;
+    private final LongAdder[] routed = new LongAdder[Route.values().length];
+
+    public ReadReplicaDataSource(HikariDataSource primary, HikariDataSource replica,
+                                 Duration maxStaleness, Duration checkInterval) {
+        if (checkInterval.compareTo(maxStaleness) >= 0) {
+            throw new IllegalArgumentException("db.replica.max-staleness (" + maxStaleness
+                    + ") must be longer than db.replica.check-interval (" + checkInterval + ")");
+        }
+        this.primary = primary;
+        this.replica = replica;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        for (int i = 0; i < routed.length; i++) routed[i] = new LongAdder();
+
+        setTargetDataSource(primary);
+        setReadOnlyDataSource(new Router());
+        afterPropertiesSet();
+
+        lagChecker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("replica-lag").daemon().factory());
+        lagChecker.scheduleWithFixedDelay(this::checkLag, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Runs {@code work} with any read-only transaction it starts or joins reading from the primary. */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) PINNED.remove();
+        }
+    }
+
+    /** How far behind the primary the replica may be right now, or {@code null} before the first check. */
+    public Duration staleness() {
+        return checked ? Duration.ofNanos(System.nanoTime() - freshAsOf) : null;
+    }
+
+    /** Connections both pools may hold between them. */
+    public int maximumPoolSize() {
+        return primary.getMaximumPoolSize() + replica.getMaximumPoolSize();
+    }
+
+    public long routed(Route route) {
+        return routed[route.ordinal()].sum();
+    }
+
+    private Route route() {
+        if (PINNED.get() != null) return Route.PINNED;
+        if (down) return Route.DOWN;
+        if (!checked || System.nanoTime() - freshAsOf > maxStalenessNanos) return Route.STALE;
+        return Route.REPLICA;
+    }
+
+    // Spring Data names its own transactions after SimpleJpaRepository; service methods after themselves
+    private static boolean serviceTransaction() {
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null && !name.startsWith("org.springframework.");
+    }
+
+    /** The read-only side of the proxy: the replica when it may be used, otherwise the primary. */
+    private final class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!serviceTransaction()) return primary.getConnection();
+
+            Route route = route();
+            if (route == Route.REPLICA) {
+                try {
+                    Connection connection = replica.getConnection();
+                    routed[Route.REPLICA.ordinal()].increment();
+                    return connection;
+                } catch (SQLException e) {
+                    markDown(e);
+                    route = Route.DOWN;
+                }
+            }
+            routed[route.ordinal()].increment();
+            return primary.getConnection();
+        }
+
+        // The replica pool only knows its own credentials; anyone else reads from the primary
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return primary.getConnection(username, password);
+        }
+    }
+
+    private void markDown(SQLException e) {
+        if (!down) log.warn("Read replica unavailable, reading from the primary: {}", e.getMessage());
+        down = true;
+    }
+
+    private void checkLag() {
+        long sampledAt = System.nanoTime();
+        long primaryLsn;
+        try {
+            primaryLsn = queryLsn(primary, "select pg_current_wal_lsn()::text");
+        } catch (SQLException e) {
+            log.debug("Could not sample the primary's WAL position", e);
+            return;
+        }
+        samples.addLast(new Sample(sampledAt, primaryLsn));
+        // samples older than the bound can only ever say "stale"
+        while (samples.size() > 1 && sampledAt - samples.peekFirst().at() > 2 * maxStalenessNanos) {
+            samples.removeFirst();
+        }
+
+        long replayed;
+        try {
+            replayed = queryLsn(replica,
+                    "select case when pg_is_in_recovery() then pg_last_wal_replay_lsn()::text end");
+        } catch (SQLException e) {
+            markDown(e);
+            return;
+        }
+        if (down) log.info("Read replica reachable again");
+        down = false;
+
+        for (Iterator<Sample> it = samples.descendingIterator(); it.hasNext(); ) {
+            Sample sample = it.next();
+            if (Long.compareUnsigned(sample.lsn(), replayed) <= 0) {
+                if (!checked || sample.at() - freshAsOf > 0) freshAsOf = sample.at();
+                checked = true;
+                break;
+            }
+        }
+    }
+
+    // "16/B374D848" as one number; null (not in recovery) is treated as fully caught up
+    private static long queryLsn(HikariDataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            String lsn = rs.getString(1);
+            if (lsn == null) return -1L;
+            int slash = lsn.indexOf('/');
+            return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+        }
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replica.close();
+        primary.close();
+    }
+}
@@ -1,5 +1,6 @@
 package com.borsibaar.backend.configs;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -21,13 +22,16 @@ public class SecurityConfiguration {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final AuthenticationProvider authenticationProvider;
+    private final ManagementPortMatcher managementPort;
 
     public SecurityConfiguration(
             JwtAuthenticationFilter jwtAuthenticationFilter,
-            AuthenticationProvider authenticationProvider
+            AuthenticationProvider authenticationProvider,
+            ManagementPortMatcher managementPort
     ) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.authenticationProvider = authenticationProvider;
+        this.managementPort = managementPort;
     }
 
     @Bean
@@ -37,10 +41,18 @@ public class SecurityConfiguration {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // async dispatches (SSE completion/timeout) resume a request that was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/**", "/signup", "/register/**").permitAll()
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        // metrics are per bar, so only scrapeable on the internal management port
+                        .requestMatchers(managementPort).permitAll()
                         .requestMatchers("/api/categories/**").authenticated()
                         .requestMatchers("/api/products/**").authenticated()
                         .requestMatchers("/api/orders/**").authenticated()
+                        .requestMatchers("/api/price-history/**").authenticated()
+                        .requestMatchers("/api/revenue/**").authenticated()
+                        .requestMatchers("/api/prices/**").authenticated()
                         .requestMatchers("/users/**").authenticated()
                         .anyRequest().denyAll() // fallback: deny unconfigured routes explicitly
                 )
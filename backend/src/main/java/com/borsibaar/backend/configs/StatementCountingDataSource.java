@@ -0,0 +1,102 @@
+package com.borsibaar.backend.configs;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reports every statement execution to the calling thread's {@link StatementTally}. Connections and
+ * the statements they create are wrapped; result sets are not, so reading rows adds nothing.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (isIdentity(method)) return identity(proxy, method, args);
+                    Object result = invoke(target, method, args);
+                    if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        // prepareStatement/prepareCall carry their SQL; plain statements get it per execute
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                        return counting(method.getReturnType(), statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private static Object counting(Class<?> type, Statement target, String preparedSql) {
+        // what addBatch(String) queued on a plain statement, so its batch can be told apart
+        List<String> batched = new ArrayList<>();
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (isIdentity(method)) return identity(proxy, method, args);
+                    if (method.getName().equals("addBatch") && args != null && args[0] instanceof String s) {
+                        batched.add(s);
+                    } else if (method.getName().equals("clearBatch")) {
+                        batched.clear();
+                    }
+                    if (!EXECUTE.contains(method.getName())) return invoke(target, method, args);
+
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(target, method, args);
+                    } finally {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                        if (method.getName().endsWith("Batch")) {
+                            sql = batchLabel(sql, batched);
+                            batched.clear(); // executing a batch empties it, whatever the outcome
+                        }
+                        StatementTally.record(sql, System.nanoTime() - start);
+                    }
+                });
+    }
+
+    private static String batchLabel(String preparedSql, List<String> batched) {
+        if (preparedSql != null) return preparedSql + " [batch]";
+        if (batched.isEmpty()) return "<batch>";
+        return String.join("; ", batched) + " [batch of " + batched.size() + "]";
+    }
+
+    private static boolean isIdentity(Method method) {
+        return (method.getName().equals("equals") && method.getParameterCount() == 1)
+                || (method.getName().equals("hashCode") && method.getParameterCount() == 0);
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.borsibaar.backend.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request SQL statement counts, cheap enough to leave on in production (unlike
+ * {@code spring.jpa.show-sql}). Switched off entirely with {@code db.statement-stats.enabled=false}.
+ * <ul>
+ *     <li>{@code db.statement-stats.header} adds {@code X-Sql-Statements}/{@code X-Sql-Time-Ms} to
+ *     every response; meant for development, off by default.</li>
+ *     <li>{@code db.statement-stats.warn-threshold} logs requests running more statements than this
+ *     (default 100).</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(name = "db.statement-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementStatsConfiguration {
+
+    // Ordered, so it wraps the pool itself and the connection limiter (unordered) wraps this
+    @Bean
+    static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new OrderedPostProcessor();
+    }
+
+    @Bean
+    FilterRegistrationBean<StatementStatsFilter> statementStatsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${db.statement-stats.header:false}") boolean header,
+            @Value("${db.statement-stats.warn-threshold:100}") int warnThreshold
+    ) {
+        FilterRegistrationBean<StatementStatsFilter> registration =
+                new FilterRegistrationBean<>(new StatementStatsFilter(meterRegistry, header, warnThreshold));
+        // ahead of Spring Security, so the principal lookup on a token cache miss is counted too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    private static final class OrderedPostProcessor implements BeanPostProcessor, Ordered {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)
+                    ? new StatementCountingDataSource(dataSource)
+                    : bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.borsibaar.backend.configs;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Tallies the SQL statements each request runs on its thread. Recorded per endpoint as
+ * {@code http.server.requests.sql.statements} and {@code http.server.requests.sql.time}, tagged
+ * with method and URI pattern like Boot's own {@code http.server.requests}; requests over
+ * {@code warnThreshold} statements are logged. With {@code header} on, the response also carries
+ * {@code X-Sql-Statements} and {@code X-Sql-Time-Ms}, counted up to the moment the body starts
+ * (statements run while it is being written still reach the metrics).
+ * <p>
+ * Async requests (the price stream, the board long-poll) are recorded when their first dispatch
+ * returns.
+ */
+public class StatementStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementStatsFilter.class);
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean header;
+    private final int warnThreshold;
+
+    public StatementStatsFilter(MeterRegistry meterRegistry, boolean header, int warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.header = header;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        try (StatementTally tally = StatementTally.start()) {
+            HttpServletResponse stamped = header ? new Stamping(response, tally) : response;
+            try {
+                filterChain.doFilter(request, stamped);
+            } finally {
+                if (stamped instanceof Stamping s) s.stamp();
+                record(request, tally);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, StatementTally tally) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        String method = request.getMethod();
+
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .baseUnit("statements")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(tally.statements());
+        Timer.builder("http.server.requests.sql.time")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(tally.time());
+
+        if (tally.statements() > warnThreshold) {
+            log.warn("{} {} ran {} SQL statements ({} ms)",
+                    method, request.getRequestURI(), tally.statements(), tally.time().toMillis());
+        }
+    }
+
+    // Headers only stick while the response is uncommitted, so they go on just before the body does
+    private static final class Stamping extends HttpServletResponseWrapper {
+        private final StatementTally tally;
+        private boolean stamped;
+
+        Stamping(HttpServletResponse response, StatementTally tally) {
+            super(response);
+            this.tally = tally;
+        }
+
+        void stamp() {
+            if (stamped || isCommitted()) return;
+            stamped = true;
+            setHeader(STATEMENTS_HEADER, Integer.toString(tally.statements()));
+            setHeader(TIME_HEADER, Long.toString(tally.time().toMillis()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            stamp();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            stamp();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            stamp();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            stamp();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            stamp();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            stamp();
+            super.sendRedirect(location);
+        }
+    }
+}
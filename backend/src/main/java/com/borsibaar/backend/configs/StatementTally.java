@@ -0,0 +1,86 @@
+package com.borsibaar.backend.configs;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL statements executed on the current thread while the tally is open, as seen by
+ * {@link StatementCountingDataSource}: one per execute call, a whole JDBC batch counting once, and
+ * the time spent inside those calls (not in reading the result sets). Tallies nest; an inner one
+ * also counts towards every tally it was opened inside.
+ * <pre>{@code
+ * try (StatementTally tally = StatementTally.start()) {
+ *     orderService.save(order, user);
+ *     log.info("{} statements", tally.statements());
+ * }
+ * }</pre>
+ */
+public final class StatementTally implements AutoCloseable {
+
+    private static final ThreadLocal<StatementTally> CURRENT = new ThreadLocal<>();
+    private static final LongAdder TOTAL = new LongAdder();
+
+    private final StatementTally parent;
+    private final List<String> sql;
+    private int statements;
+    private long nanos;
+    private boolean closed;
+
+    private StatementTally(StatementTally parent, boolean captureSql) {
+        this.parent = parent;
+        this.sql = captureSql ? new ArrayList<>() : null;
+    }
+
+    /** Opens a tally on this thread; close it on the same thread. */
+    public static StatementTally start() {
+        return open(false);
+    }
+
+    /** Like {@link #start()}, also keeping the text of every statement for {@link #sql()}. */
+    public static StatementTally capturing() {
+        return open(true);
+    }
+
+    private static StatementTally open(boolean captureSql) {
+        StatementTally tally = new StatementTally(CURRENT.get(), captureSql);
+        CURRENT.set(tally);
+        return tally;
+    }
+
+    /** Statements executed on any thread so far, tallied or not. */
+    public static long total() {
+        return TOTAL.sum();
+    }
+
+    static void record(String statement, long elapsedNanos) {
+        TOTAL.increment();
+        for (StatementTally t = CURRENT.get(); t != null; t = t.parent) {
+            t.statements++;
+            t.nanos += elapsedNanos;
+            if (t.sql != null) t.sql.add(statement);
+        }
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public Duration time() {
+        return Duration.ofNanos(nanos);
+    }
+
+    /** Statement texts in execution order; empty unless opened with {@link #capturing()}. */
+    public List<String> sql() {
+        return sql == null ? List.of() : List.copyOf(sql);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (parent == null) CURRENT.remove();
+        else CURRENT.set(parent);
+    }
+}
@@ -0,0 +1,73 @@
+package com.borsibaar.backend.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Extras for running on virtual threads, switched on with Boot's own
+ * {@code spring.threads.virtual.enabled=true} (Java 21+). That property already moves Tomcat's
+ * request handling, the {@code @Scheduled} jobs and {@code applicationTaskExecutor} (used by the
+ * board long-poll) onto virtual threads; the price feed senders follow the same switch, while the
+ * BCrypt pool stays a small pool of platform threads since its work is pure CPU.
+ * <p>
+ * What is added here is the limit virtual threads take away: the data source is wrapped in a
+ * {@link ConnectionLimitingDataSource} with {@code db.max-concurrent-connections} permits (unless set,
+ * the Hikari pool size, or both pools' sizes with a read replica) and a {@code db.connection-wait-ms}
+ * timeout.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfiguration {
+
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+                int permits = env.getProperty("db.max-concurrent-connections", Integer.class, poolSize(dataSource));
+                long waitMs = env.getProperty("db.connection-wait-ms", Long.class, 10_000L);
+                return new ConnectionLimitingDataSource(dataSource, permits, waitMs);
+            }
+        };
+    }
+
+    // The pool may already sit under another wrapper, such as the statement counter; with a
+    // replica configured, reads may hold the replica's connections on top of the primary's
+    static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(ReadReplicaDataSource.class)) {
+                return dataSource.unwrap(ReadReplicaDataSource.class).maximumPoolSize();
+            }
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                    : 10;
+        } catch (SQLException e) {
+            return 10;
+        }
+    }
+
+    @Bean
+    MeterBinder connectionLimitMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(ConnectionLimitingDataSource.class::isInstance)
+                .map(ConnectionLimitingDataSource.class::cast)
+                .forEach(ds -> {
+                    Gauge.builder("db.connections.waiting", ds, ConnectionLimitingDataSource::waiting).register(registry);
+                    Gauge.builder("db.connections.permits.available", ds, ConnectionLimitingDataSource::available).register(registry);
+                });
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/auth")
@@ -52,18 +53,19 @@ public class AuthenticationController {
 
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
         LoginUserDto loginDto = new LoginUserDto();
         loginDto.setEmail(request.getEmail());
         loginDto.setPassword(request.getPassword());
 
-        User user = authenticationService.authenticate(loginDto);
-        AuthUserDto userDto = AuthUserDto.from(user);
-        String token = jwtService.generateTokenForUser(user.getEmail());
-        return ResponseEntity.ok(Map.of(
-                "token", token,
-                "user", userDto
-        ));
+        return authenticationService.authenticate(loginDto).thenApply(user -> {
+            AuthUserDto userDto = AuthUserDto.from(user);
+            String token = jwtService.generateTokenForUser(user.getEmail());
+            return ResponseEntity.ok(Map.of(
+                    "token", token,
+                    "user", userDto
+            ));
+        });
     }
 
     @Getter
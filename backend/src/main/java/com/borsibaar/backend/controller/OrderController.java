@@ -1,31 +1,32 @@
 package com.borsibaar.backend.controller;
 
+import com.borsibaar.backend.dtos.OrderBatchResultDto;
 import com.borsibaar.backend.dtos.OrderDto;
-import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.OrderPageDto;
+import com.borsibaar.backend.dtos.QueuedOrderDto;
 import com.borsibaar.backend.entity.Order;
 import com.borsibaar.backend.entity.User;
 import com.borsibaar.backend.service.OrderService;
-import com.borsibaar.backend.service.ProductService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("api")
 public class OrderController {
     private final OrderService orderService;
-    private final ProductService productService;
 
-    public OrderController(OrderService orderService, ProductService productService) {
+    public OrderController(OrderService orderService) {
         this.orderService = orderService;
-        this.productService = productService;
     }
 
     @GetMapping("orders")
     public List<OrderDto> list(@AuthenticationPrincipal User principal) {
-        return mapOrdersToDto(orderService.findAll());
+        return orderService.getAllOrders();
     }
 
     @PostMapping("orders")
@@ -38,6 +39,16 @@ public class OrderController {
         return orderService.save(orderDto, principal);
     }
 
+    // Orders queued by a tablet while it was offline; see OrderService#saveBatch
+    @PostMapping("orders/batch")
+    public List<OrderBatchResultDto> createBatch(@RequestBody List<QueuedOrderDto> orders,
+                                                 @AuthenticationPrincipal User principal) {
+        if (principal == null) {
+            throw new RuntimeException("Unauthenticated");
+        }
+        return orderService.saveBatch(orders, principal);
+    }
+
     @PutMapping("orders/{id}")
     public Order update(@PathVariable Long id,
                         @RequestBody OrderDto dto,
@@ -58,6 +69,26 @@ public class OrderController {
         orderService.delete(id, principal);
     }
 
+    @GetMapping("orders/page")
+    public OrderPageDto page(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                             @RequestParam(required = false) String cursor,
+                             @RequestParam(required = false) Integer size) {
+        return orderService.getOrderPage(null, from, to, cursor, size);
+    }
+
+    @GetMapping("orders/my/page")
+    public OrderPageDto myPage(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                               @RequestParam(required = false) String cursor,
+                               @RequestParam(required = false) Integer size,
+                               @AuthenticationPrincipal User principal) {
+        if (principal == null) {
+            throw new RuntimeException("Unauthenticated");
+        }
+        return orderService.getOrderPage(principal, from, to, cursor, size);
+    }
+
     @GetMapping("orders/my")
     public List<OrderDto> getMyOrders(@AuthenticationPrincipal User principal) {
         if (principal == null) {
@@ -65,22 +96,4 @@ public class OrderController {
         }
         return orderService.getMyOrders(principal); // Already DTOs
     }
-
-    private List<OrderDto> mapOrdersToDto(List<Order> orders) {
-        return orders.stream().map(order -> {
-            List<OrderItemDto> items = order.getItems().stream()
-                    .map(i -> OrderItemDto.builder()
-                            .quantity(i.getQuantity())
-                            .product(productService.buildDto(i.getProduct())) // includes priceChange & priceUp
-                            .build())
-                    .toList();
-
-            return OrderDto.builder()
-                    .id(order.getId())
-                    .createdAt(order.getCreatedAt().toString())
-                    .total(order.getTotal())
-                    .items(items)
-                    .build();
-        }).toList();
-    }
 }
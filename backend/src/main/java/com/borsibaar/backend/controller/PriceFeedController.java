@@ -0,0 +1,32 @@
+package com.borsibaar.backend.controller;
+
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.service.PriceFeed;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/prices")
+public class PriceFeedController {
+
+    private final PriceFeed priceFeed;
+
+    public PriceFeedController(PriceFeed priceFeed) {
+        this.priceFeed = priceFeed;
+    }
+
+    /** A {@code snapshot} event with the caller's board, then coalesced {@code prices} events. */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal User principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthenticated");
+        }
+        return priceFeed.subscribe(principal);
+    }
+}
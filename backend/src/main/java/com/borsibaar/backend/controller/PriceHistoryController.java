@@ -1,31 +1,101 @@
 package com.borsibaar.backend.controller;
 
-import com.borsibaar.backend.dtos.PriceHistoryDto;
-import com.borsibaar.backend.repository.PriceHistoryRepository;
+import com.borsibaar.backend.dtos.CandleDto;
+import com.borsibaar.backend.dtos.PriceHistoryPageDto;
+import com.borsibaar.backend.dtos.SparklineDto;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.service.CandleBook;
+import com.borsibaar.backend.service.PriceBook;
+import com.borsibaar.backend.service.PriceHistoryService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/price-history")
 public class PriceHistoryController {
 
-    private final PriceHistoryRepository repo;
+    private final PriceHistoryService priceHistoryService;
+    private final PriceBook priceBook;
+    private final CandleBook candleBook;
 
-    public PriceHistoryController(PriceHistoryRepository repo) {
-        this.repo = repo;
+    // Default sparkline window, in buckets of the requested interval
+    private static final int SPARKLINE_BUCKETS = 60;
+
+    public PriceHistoryController(PriceHistoryService priceHistoryService,
+                                  PriceBook priceBook, CandleBook candleBook) {
+        this.priceHistoryService = priceHistoryService;
+        this.priceBook = priceBook;
+        this.candleBook = candleBook;
     }
 
     @GetMapping("/{productId}")
-    public List<PriceHistoryDto> byProduct(@PathVariable Long productId) {
-        return repo.findByProductIdOrderByChangedAtAsc(productId).stream()
-                .map(h -> PriceHistoryDto.builder()
-                        .changedAt(h.getChangedAt())
-                        .oldPrice(h.getOldPrice())
-                        .newPrice(h.getNewPrice())
-                        .change(h.getNewPrice().subtract(h.getOldPrice()))
-                        .reason(h.getReason())
-                        .build())
-                .toList();
+    public PriceHistoryPageDto byProduct(@PathVariable Long productId,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @AuthenticationPrincipal User principal) {
+        return priceHistoryService.page(productId, principal == null ? null : principal.getId(), from, to, cursor, limit);
+    }
+
+    @GetMapping("/{productId}/candles")
+    public List<CandleDto> candles(@PathVariable Long productId,
+                                   @RequestParam(defaultValue = "1m") String interval,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                   @AuthenticationPrincipal User principal) {
+        if (principal == null || !principal.getId().equals(priceBook.ownerOf(productId))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+
+        List<CandleDto> out = new ArrayList<>();
+        candleBook.read(productId, CandleBook.Interval.parse(interval), from, to, c ->
+                out.add(CandleDto.builder()
+                        .start(c.start())
+                        .open(Money.ofCents(c.open()))
+                        .high(Money.ofCents(c.high()))
+                        .low(Money.ofCents(c.low()))
+                        .close(Money.ofCents(c.close()))
+                        .volume(c.volume())
+                        .build()));
+        return out;
+    }
+
+    /** Closing prices for every product of the caller, last {@value #SPARKLINE_BUCKETS} buckets by default. */
+    @GetMapping("/sparklines")
+    public List<SparklineDto> sparklines(@RequestParam(defaultValue = "5m") String interval,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                         @AuthenticationPrincipal User principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthenticated");
+        }
+        CandleBook.Interval bucket = CandleBook.Interval.parse(interval);
+        if (from == null) {
+            LocalDateTime end = to == null ? LocalDateTime.now() : to;
+            from = end.minusNanos(bucket.millis() * SPARKLINE_BUCKETS * 1_000_000L);
+        }
+
+        List<SparklineDto> out = new ArrayList<>();
+        for (Long productId : candleBook.productsOf(principal.getId())) {
+            List<LocalDateTime> times = new ArrayList<>();
+            List<Money> closes = new ArrayList<>();
+            candleBook.read(productId, bucket, from, to, c -> {
+                times.add(c.start());
+                closes.add(Money.ofCents(c.close()));
+            });
+            if (!times.isEmpty()) {
+                out.add(SparklineDto.builder().productId(productId).times(times).closes(closes).build());
+            }
+        }
+        return out;
     }
 }
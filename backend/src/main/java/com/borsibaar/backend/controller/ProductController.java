@@ -1,28 +1,80 @@
 package com.borsibaar.backend.controller;
 
+import com.borsibaar.backend.dtos.BoardDto;
 import com.borsibaar.backend.dtos.CreateProductDto;
 import com.borsibaar.backend.dtos.ProductDTO;
 import com.borsibaar.backend.dtos.UpdateProductDto;
 import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.service.BoardService;
+import com.borsibaar.backend.service.BoardSnapshots;
 import com.borsibaar.backend.service.ProductService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
     private final ProductService productService;
+    private final BoardService boardService;
+    private final BoardSnapshots boardSnapshots;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, BoardService boardService,
+                             BoardSnapshots boardSnapshots) {
         this.productService = productService;
+        this.boardService = boardService;
+        this.boardSnapshots = boardSnapshots;
     }
 
+    /** The caller's board as cached JSON bytes, gzip-compressed when the client accepts it. */
     @GetMapping("/my")
-    public List<ProductDTO> myProducts(@AuthenticationPrincipal User principal) {
-        return productService.findForUser(principal);
+    public ResponseEntity<byte[]> myProducts(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             @AuthenticationPrincipal User principal) {
+        long version = boardService.version(principal);
+        if (Long.valueOf(version).equals(BoardService.versionOf(ifNoneMatch))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(BoardService.etag(version)).build();
+        }
+
+        BoardSnapshots.Snapshot board = boardSnapshots.get(principal);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .eTag(BoardService.etag(board.version()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (boardSnapshots.useGzip(acceptEncoding)) {
+            return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(board.gzip());
+        }
+        return ok.body(board.json());
+    }
+
+    /**
+     * The board as a delta since {@code sinceVersion} (or the {@code If-None-Match} version); 304 if
+     * nothing changed. With {@code wait} seconds the request parks until the version moves.
+     */
+    @GetMapping("/my/sync")
+    public CompletableFuture<ResponseEntity<BoardDto>> sync(@RequestParam(required = false) Long sinceVersion,
+                                                            @RequestParam(defaultValue = "0") int wait,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                            @AuthenticationPrincipal User principal) {
+        Long known = sinceVersion != null ? sinceVersion : BoardService.versionOf(ifNoneMatch);
+        if (known == null || wait == 0) {
+            return CompletableFuture.completedFuture(sync(principal, sinceVersion, known));
+        }
+        return boardService.afterChange(principal, known, wait, () -> sync(principal, sinceVersion, known));
+    }
+
+    private ResponseEntity<BoardDto> sync(User principal, Long sinceVersion, Long known) {
+        long version = boardService.version(principal);
+        if (known != null && known == version) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(BoardService.etag(version)).build();
+        }
+        BoardDto board = boardService.board(principal, sinceVersion);
+        return ResponseEntity.ok().eTag(BoardService.etag(board.getVersion())).body(board);
     }
 
     @PostMapping
@@ -0,0 +1,36 @@
+package com.borsibaar.backend.controller;
+
+import com.borsibaar.backend.dtos.RevenueDto;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.service.RevenueService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/revenue")
+public class RevenueController {
+
+    private final RevenueService revenueService;
+
+    public RevenueController(RevenueService revenueService) {
+        this.revenueService = revenueService;
+    }
+
+    @GetMapping
+    public RevenueDto revenue(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                              @AuthenticationPrincipal User principal) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthenticated");
+        }
+        return revenueService.report(principal.getId(), from, to);
+    }
+}
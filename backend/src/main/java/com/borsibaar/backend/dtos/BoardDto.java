@@ -0,0 +1,21 @@
+package com.borsibaar.backend.dtos;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An owner's product board at {@code version}. When {@code full} is false, {@code products} holds
+ * only what changed since the client's version and {@code removed} the ids deleted since then.
+ */
+@Getter
+@Builder
+public class BoardDto {
+    private long version;
+    private boolean full;
+    private List<ProductDTO> products;
+    private List<Long> removed;
+    private LocalDateTime nextDecayAt; // null until the first decay tick ran
+}
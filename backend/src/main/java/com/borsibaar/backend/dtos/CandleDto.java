@@ -0,0 +1,18 @@
+package com.borsibaar.backend.dtos;
+
+import com.borsibaar.backend.entity.Money;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+public class CandleDto {
+    private LocalDateTime start;
+    private Money open;
+    private Money high;
+    private Money low;
+    private Money close;
+    private long volume;
+}
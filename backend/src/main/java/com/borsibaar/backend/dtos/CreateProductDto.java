@@ -1,9 +1,8 @@
 package com.borsibaar.backend.dtos;
 
+import com.borsibaar.backend.entity.Money;
 import lombok.*;
 
-import java.math.BigDecimal;
-
 @Getter
 @Setter
 @NoArgsConstructor
@@ -12,6 +11,6 @@ import java.math.BigDecimal;
 public class CreateProductDto {
     private String name;
     private String description;
-    private BigDecimal price;
+    private Money price;
     private Long categoryId;
 }
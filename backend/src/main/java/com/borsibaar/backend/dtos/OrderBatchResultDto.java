@@ -0,0 +1,18 @@
+package com.borsibaar.backend.dtos;
+
+import com.borsibaar.backend.entity.Money;
+import lombok.Builder;
+import lombok.Getter;
+
+/** What became of one queued order; results come back in the order the batch was sent. */
+@Getter
+@Builder
+public class OrderBatchResultDto {
+    public enum Status { CREATED, REJECTED }
+
+    private String clientId;
+    private Status status;
+    private Long orderId;   // CREATED only
+    private Money total;    // CREATED only
+    private String error;   // REJECTED only
+}
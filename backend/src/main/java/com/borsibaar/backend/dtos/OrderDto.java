@@ -1,5 +1,6 @@
 package com.borsibaar.backend.dtos;
 
+import com.borsibaar.backend.entity.Money;
 import lombok.*;
 
 import java.util.List;
@@ -13,6 +14,6 @@ import java.util.List;
 public class OrderDto {
     private Long id;
     private String createdAt;
-    private double total;
+    private Money total;
     private List<OrderItemDto> items;
 }
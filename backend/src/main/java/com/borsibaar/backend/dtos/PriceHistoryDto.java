@@ -1,17 +1,17 @@
 package com.borsibaar.backend.dtos;
 
+import com.borsibaar.backend.entity.Money;
 import lombok.Builder;
 import lombok.Getter;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Getter
 @Builder
 public class PriceHistoryDto {
     private LocalDateTime changedAt;
-    private BigDecimal oldPrice;
-    private BigDecimal newPrice;
-    private BigDecimal change;
+    private Money oldPrice;
+    private Money newPrice;
+    private Money change;
     private String reason;
 }
@@ -0,0 +1,14 @@
+package com.borsibaar.backend.dtos;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/** One page of price history; pass {@code nextCursor} back as {@code cursor} for the next page. */
+@Getter
+@Builder
+public class PriceHistoryPageDto {
+    private List<PriceHistoryDto> items;
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,19 @@
+package com.borsibaar.backend.dtos;
+
+import com.borsibaar.backend.entity.Money;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/** Live state of one product as pushed by the price feed; field names match {@link ProductDTO}. */
+@Getter
+@Builder
+public class PriceUpdateDto {
+    private Long id;
+    private Money price;
+    private Long salesCount;
+    private LocalDateTime lastSaleAt;
+    private Money priceChange; // null when only sales moved
+    private Boolean priceUp;
+}
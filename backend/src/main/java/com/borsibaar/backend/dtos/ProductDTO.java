@@ -1,9 +1,9 @@
 package com.borsibaar.backend.dtos;
 
+import com.borsibaar.backend.entity.Money;
 import lombok.Builder;
 import lombok.Getter;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Getter
@@ -12,14 +12,14 @@ public class ProductDTO {
     private Long id;
     private String name;
     private String description;
-    private BigDecimal price;
+    private Money price;
     private Long salesCount;
     private Long categoryId;
     private String categoryName;
     private LocalDateTime lastSaleAt;
 
-    private BigDecimal priceChange;
+    private Money priceChange;
     private Boolean priceUp;
-    private BigDecimal predictedPrice;
+    private Money predictedPrice;
 
 }
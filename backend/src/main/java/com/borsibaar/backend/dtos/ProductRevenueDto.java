@@ -0,0 +1,14 @@
+package com.borsibaar.backend.dtos;
+
+import com.borsibaar.backend.entity.Money;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class ProductRevenueDto {
+    private Long productId;
+    private String name; // null once the product is deleted
+    private long sold;
+    private Money revenue;
+}
@@ -0,0 +1,18 @@
+package com.borsibaar.backend.dtos;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** An order a tablet took while offline, replayed through {@code POST /api/orders/batch}. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueuedOrderDto {
+    private String clientId;         // the tablet's own id for the order, echoed in the result
+    private LocalDateTime createdAt; // when the order was taken; null means now
+    private List<OrderItemDto> items;
+}
@@ -0,0 +1,17 @@
+package com.borsibaar.backend.dtos;
+
+import com.borsibaar.backend.entity.Money;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public class RevenueDto {
+    private Money revenue;
+    private long orders;
+    private Money averageOrder;
+    private List<ProductRevenueDto> products; // best sellers first
+    private List<RevenueHourDto> hours;
+}
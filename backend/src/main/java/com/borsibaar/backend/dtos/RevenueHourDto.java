@@ -0,0 +1,15 @@
+package com.borsibaar.backend.dtos;
+
+import com.borsibaar.backend.entity.Money;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+public class RevenueHourDto {
+    private LocalDateTime start;
+    private long orders;
+    private Money revenue;
+}
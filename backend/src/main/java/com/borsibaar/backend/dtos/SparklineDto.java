@@ -0,0 +1,17 @@
+package com.borsibaar.backend.dtos;
+
+import com.borsibaar.backend.entity.Money;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Closing prices of one product's buckets, in time order; {@code times[i]} starts {@code closes[i]}. */
+@Getter
+@Builder
+public class SparklineDto {
+    private Long productId;
+    private List<LocalDateTime> times;
+    private List<Money> closes;
+}
@@ -1,12 +1,11 @@
 package com.borsibaar.backend.dtos;
 
+import com.borsibaar.backend.entity.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
-
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,6 +13,6 @@ import java.math.BigDecimal;
 public class UpdateProductDto {
     private String name;
     private String description;
-    private BigDecimal price;
+    private Money price;
     private Long categoryId;
 }
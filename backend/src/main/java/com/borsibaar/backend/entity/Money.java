@@ -0,0 +1,92 @@
+package com.borsibaar.backend.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money in whole cents. Arithmetic is exact; the only rounding happens where a
+ * fraction of a cent appears (converting in a {@link BigDecimal}, {@link #times(long, long)},
+ * {@link #divide}), and it is always half up, ties away from zero.
+ * <p>
+ * Stored through {@link MoneyConverter} as {@code numeric(…, 2)} and written to JSON as a number
+ * with exactly two decimals, e.g. {@code 5.00}.
+ */
+public record Money(long cents) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /** Rounds to the cent, half up. Accepts JSON numbers and strings such as {@code "5.5"}. */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money parse(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public Money times(long quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    /** {@code this * numerator / denominator}, rounded half up; e.g. {@code times(107, 100)} for +7%. */
+    public Money times(long numerator, long denominator) {
+        return ofCents(roundDiv(Math.multiplyExact(cents, numerator), denominator));
+    }
+
+    /** Splits into {@code parts}, rounded half up. */
+    public Money divide(long parts) {
+        return ofCents(roundDiv(cents, parts));
+    }
+
+    public Money clamp(Money min, Money max) {
+        if (cents < min.cents) return min;
+        if (cents > max.cents) return max;
+        return this;
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    /** {@code numerator / denominator} rounded half up (ties away from zero); {@code denominator > 0}. */
+    public static long roundDiv(long numerator, long denominator) {
+        long q = numerator / denominator, r = numerator % denominator;
+        if (Math.abs(r) * 2 >= denominator) q += Long.signum(numerator);
+        return q;
+    }
+}
@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders",
+        indexes = @Index(name = "idx_orders_user_created", columnList = "user_id, created_at, id"),
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "client_id"}))
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -16,16 +18,21 @@ import java.util.List;
 @Setter
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("orders_seq")
     private Long id;
 
     private LocalDateTime createdAt;
 
+    // The tablet's own id for an order replayed from its offline queue; null for live orders
+    @Column(length = 64)
+    private String clientId;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<OrderItem> items;
 
-    private double total;
+    @Column(precision = 12, scale = 2)
+    private Money total;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
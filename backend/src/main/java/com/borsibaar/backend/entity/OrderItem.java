@@ -13,11 +13,15 @@ import lombok.*;
 @Table(name = "order_item")
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("order_item_seq")
     private Long id;
 
     private int quantity;
 
+    // Price charged per unit; null on lines recorded before it was kept
+    @Column(precision = 10, scale = 2)
+    private Money unitPrice;
+
     @ManyToOne
     @JoinColumn(name = "product_id")
     private Product product;
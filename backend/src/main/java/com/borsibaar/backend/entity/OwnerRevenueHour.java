@@ -0,0 +1,43 @@
+package com.borsibaar.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/** Order count and order totals of one owner in one hour; see {@link ProductRevenueHour}. */
+@Entity
+// the composite key orders its columns by attribute name, so owner range scans get their own index
+@Table(name = "revenue_owner_hourly",
+        indexes = @Index(name = "idx_revenue_owner_hour", columnList = "owner_id, bucket_start"))
+@IdClass(OwnerRevenueHour.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OwnerRevenueHour {
+
+    @Id
+    @Column(name = "owner_id")
+    private Integer ownerId;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private long orders;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private Money revenue;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer ownerId;
+        private LocalDateTime bucketStart;
+    }
+}
@@ -0,0 +1,9 @@
+package com.borsibaar.backend.entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Everything a price book entry accumulated since the last flush. */
+public record PendingFlush(long productId, Integer ownerId, long priceCents, long salesDelta,
+                           LocalDateTime lastSaleAt, List<PriceChange> history) {
+}
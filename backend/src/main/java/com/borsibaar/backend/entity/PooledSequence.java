@@ -0,0 +1,20 @@
+package com.borsibaar.backend.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sequence-backed id with a pooled optimizer, so Hibernate can batch inserts
+ * (it cannot with {@code GenerationType.IDENTITY}).
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+    /** Database sequence name. */
+    String value();
+}
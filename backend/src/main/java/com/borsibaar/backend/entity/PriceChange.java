@@ -0,0 +1,34 @@
+package com.borsibaar.backend.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single price move recorded by the price book, in fixed-point cents.
+ *
+ * @param detail reason-specific value, e.g. minutes without sales for {@link PriceReason#DECAY}
+ */
+public record PriceChange(
+        long productId,
+        Integer ownerId,
+        long oldCents,
+        long newCents,
+        LocalDateTime changedAt,
+        PriceReason kind,
+        int detail
+) {
+    public Money oldPrice() {
+        return Money.ofCents(oldCents);
+    }
+
+    public Money newPrice() {
+        return Money.ofCents(newCents);
+    }
+
+    public boolean isUp() {
+        return newCents > oldCents;
+    }
+
+    public String reason() {
+        return kind.describe(detail);
+    }
+}
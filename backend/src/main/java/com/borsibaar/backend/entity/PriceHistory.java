@@ -3,11 +3,11 @@ package com.borsibaar.backend.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "price_history")
+@Table(name = "price_history",
+        indexes = @Index(name = "idx_price_history_product_time", columnList = "product_id, changed_at, id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,10 +24,10 @@ public class PriceHistory {
     private Product product;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal oldPrice;
+    private Money oldPrice;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal newPrice;
+    private Money newPrice;
 
     @Column(nullable = false)
     private LocalDateTime changedAt;
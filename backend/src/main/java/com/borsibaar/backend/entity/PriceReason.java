@@ -0,0 +1,58 @@
+package com.borsibaar.backend.entity;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Why a price moved. The code is what the tick store persists; the text is what
+ * {@code price_history.reason} has always held.
+ */
+public enum PriceReason {
+    OTHER(0, "Price change"),
+    ORDER_BUMP(1, "Auto price bump from order"),
+    ORDER_DROP(2, "Auto price drop due to lower demand"),
+    DECAY(3, "Auto decay (no sales for %d min)");
+
+    private static final Pattern DECAY_TEXT = Pattern.compile("Auto decay \\(no sales for (\\d+) min\\)");
+
+    private final byte code;
+    private final String text;
+
+    PriceReason(int code, String text) {
+        this.code = (byte) code;
+        this.text = text;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    /** Human-readable reason; {@code detail} is the minutes without sales for {@link #DECAY}. */
+    public String describe(int detail) {
+        return this == DECAY ? String.format(text, detail) : text;
+    }
+
+    public static PriceReason fromCode(byte code) {
+        for (PriceReason r : values()) {
+            if (r.code == code) return r;
+        }
+        return OTHER;
+    }
+
+    /** Maps a stored reason text back to its code, for rows written before codes existed. */
+    public static PriceReason parse(String reason) {
+        if (reason == null) return OTHER;
+        if (DECAY_TEXT.matcher(reason).matches()) return DECAY;
+        for (PriceReason r : values()) {
+            if (r != DECAY && r.text.equals(reason)) return r;
+        }
+        return OTHER;
+    }
+
+    /** Minutes without sales encoded in a decay reason text, otherwise 0. */
+    public static int parseDetail(String reason) {
+        if (reason == null) return 0;
+        Matcher m = DECAY_TEXT.matcher(reason);
+        return m.matches() ? Integer.parseInt(m.group(1)) : 0;
+    }
+}
@@ -4,11 +4,12 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@DynamicUpdate
 @Table(name = "products", uniqueConstraints = @UniqueConstraint(columnNames = {"name", "category_id"}))
 @Getter
 @Setter
@@ -25,13 +26,13 @@ public class Product {
     private String description;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal price;
+    private Money price;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal minPrice;
+    private Money minPrice;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal maxPrice;
+    private Money maxPrice;
 
     @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
     private Long salesCount;
@@ -59,7 +60,7 @@ public class Product {
     private User owner;
 
     @Transient
-    private BigDecimal priceChange;
+    private Money priceChange;
 
     @Transient
     private Boolean priceUp;
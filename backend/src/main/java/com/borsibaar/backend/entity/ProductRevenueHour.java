@@ -0,0 +1,51 @@
+package com.borsibaar.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Units sold and revenue of one product in one hour. Maintained by
+ * {@link com.borsibaar.backend.repository.RevenueRepository} in the same transaction as the order.
+ */
+@Entity
+// the composite key orders its columns by attribute name, so owner range scans get their own index
+@Table(name = "revenue_product_hourly",
+        indexes = @Index(name = "idx_revenue_product_owner_hour", columnList = "owner_id, bucket_start"))
+@IdClass(ProductRevenueHour.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductRevenueHour {
+
+    @Id
+    @Column(name = "owner_id")
+    private Integer ownerId;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private long quantity;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private Money revenue;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer ownerId;
+        private LocalDateTime bucketStart;
+        private Long productId;
+    }
+}
@@ -2,6 +2,22 @@ package com.borsibaar.backend.repository;
 
 import com.borsibaar.backend.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    /** Items of many orders with their order, product and category fetched in the same query. */
+    @Query("""
+            select i from OrderItem i
+              join fetch i.order
+              left join fetch i.product p
+              left join fetch p.category
+             where i.order.id in :orderIds
+             order by i.id
+            """)
+    List<OrderItem> findAllWithProductByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
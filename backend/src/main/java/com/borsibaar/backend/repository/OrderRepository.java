@@ -2,10 +2,71 @@ package com.borsibaar.backend.repository;
 
 import com.borsibaar.backend.entity.Order;
 import com.borsibaar.backend.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUser(User user);
+
+    /** The user's orders already ingested under any of these client ids. */
+    @Query("select o from Order o where o.user.id = :userId and o.clientId in :clientIds")
+    List<Order> findByUserIdAndClientIdIn(@Param("userId") Integer userId,
+                                          @Param("clientIds") Collection<String> clientIds);
+
+    /** Orders with items, products and categories in one query, oldest first. */
+    @Query("""
+            select distinct o from Order o
+              left join fetch o.items i
+              left join fetch i.product p
+              left join fetch p.category
+             where o.user.id = :userId
+             order by o.createdAt, o.id
+            """)
+    List<Order> findAllWithItemsByUserId(@Param("userId") Integer userId);
+
+    @Query("""
+            select distinct o from Order o
+              left join fetch o.items i
+              left join fetch i.product p
+              left join fetch p.category
+             order by o.createdAt, o.id
+            """)
+    List<Order> findAllWithItems();
+
+    /**
+     * One keyset page, newest first: orders in {@code [from, to)} strictly before {@code (beforeAt, beforeId)}.
+     * Items are left unloaded; fetch them for the whole page with
+     * {@link OrderItemRepository#findAllWithProductByOrderIdIn}.
+     */
+    @Query("""
+            select o from Order o
+             where o.user.id = :userId
+               and o.createdAt >= :from and o.createdAt < :to
+               and (o.createdAt, o.id) < (:beforeAt, :beforeId)
+             order by o.createdAt desc, o.id desc
+            """)
+    List<Order> findPageByUserId(@Param("userId") Integer userId,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to,
+                                 @Param("beforeAt") LocalDateTime beforeAt,
+                                 @Param("beforeId") Long beforeId,
+                                 Limit limit);
+
+    @Query("""
+            select o from Order o
+             where o.createdAt >= :from and o.createdAt < :to
+               and (o.createdAt, o.id) < (:beforeAt, :beforeId)
+             order by o.createdAt desc, o.id desc
+            """)
+    List<Order> findPage(@Param("from") LocalDateTime from,
+                         @Param("to") LocalDateTime to,
+                         @Param("beforeAt") LocalDateTime beforeAt,
+                         @Param("beforeId") Long beforeId,
+                         Limit limit);
 }
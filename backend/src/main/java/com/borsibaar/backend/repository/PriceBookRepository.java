@@ -0,0 +1,113 @@
+package com.borsibaar.backend.repository;
+
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PendingFlush;
+import com.borsibaar.backend.entity.PriceChange;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set-based writes for the price book: one {@code UPDATE ... FROM unnest(...)} for the
+ * product rows and one {@code INSERT ... SELECT unnest(...)} for their history, whatever the
+ * chunk size. Sales are added as deltas so a concurrent catalog edit can never roll the
+ * counter back.
+ */
+@Repository
+public class PriceBookRepository {
+
+    private static final String UPDATE_PRODUCTS = """
+            UPDATE products p
+               SET price = v.price,
+                   sales_count = p.sales_count + v.sales_delta,
+                   last_sale_at = COALESCE(v.last_sale_at, p.last_sale_at)
+              FROM unnest(?::bigint[], ?::numeric[], ?::bigint[], ?::timestamp[])
+                   AS v(id, price, sales_delta, last_sale_at)
+             WHERE p.id = v.id
+            RETURNING p.id
+            """;
+
+    private static final String INSERT_HISTORY = """
+            INSERT INTO price_history (product_id, old_price, new_price, changed_at, reason)
+            SELECT * FROM unnest(?::bigint[], ?::numeric[], ?::numeric[], ?::timestamp[], ?::text[])
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public PriceBookRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Writes one chunk in its own short transaction.
+     *
+     * @return number of product rows touched; history of products deleted meanwhile is dropped
+     */
+    @Transactional
+    public int write(List<PendingFlush> pending) {
+        int n = pending.size();
+        Object[] ids = new Object[n], prices = new Object[n], deltas = new Object[n], lastSales = new Object[n];
+        for (int i = 0; i < n; i++) {
+            PendingFlush p = pending.get(i);
+            ids[i] = p.productId();
+            prices[i] = Money.ofCents(p.priceCents()).toBigDecimal();
+            deltas[i] = p.salesDelta();
+            lastSales[i] = timestamp(p.lastSaleAt());
+        }
+
+        Set<Long> updated = new HashSet<>(jdbc.query(con -> prepare(con, UPDATE_PRODUCTS,
+                        array(con, "bigint", ids), array(con, "numeric", prices),
+                        array(con, "bigint", deltas), array(con, "timestamp", lastSales)),
+                (rs, row) -> rs.getLong(1)));
+
+        List<PriceChange> history = pending.stream()
+                .filter(p -> updated.contains(p.productId()))
+                .flatMap(p -> p.history().stream())
+                .toList();
+        if (history.isEmpty()) return updated.size();
+
+        int h = history.size();
+        Object[] productIds = new Object[h], oldPrices = new Object[h], newPrices = new Object[h],
+                changedAt = new Object[h], reasons = new Object[h];
+        for (int i = 0; i < h; i++) {
+            PriceChange c = history.get(i);
+            productIds[i] = c.productId();
+            oldPrices[i] = c.oldPrice().toBigDecimal();
+            newPrices[i] = c.newPrice().toBigDecimal();
+            changedAt[i] = timestamp(c.changedAt());
+            reasons[i] = c.reason();
+        }
+
+        jdbc.update(con -> prepare(con, INSERT_HISTORY,
+                array(con, "bigint", productIds), array(con, "numeric", oldPrices),
+                array(con, "numeric", newPrices), array(con, "timestamp", changedAt),
+                array(con, "text", reasons)));
+
+        return updated.size();
+    }
+
+    private static PreparedStatement prepare(Connection con, String sql, java.sql.Array... arrays) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        for (int i = 0; i < arrays.length; i++) {
+            ps.setArray(i + 1, arrays[i]);
+        }
+        return ps;
+    }
+
+    private static java.sql.Array array(Connection con, String type, Object[] values) throws SQLException {
+        return con.createArrayOf(type, values);
+    }
+
+    private static Timestamp timestamp(LocalDateTime t) {
+        return t == null ? null : Timestamp.valueOf(t);
+    }
+}
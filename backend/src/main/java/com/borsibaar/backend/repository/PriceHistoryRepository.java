@@ -2,12 +2,68 @@
 package com.borsibaar.backend.repository;
 
 import com.borsibaar.backend.entity.PriceHistory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long> {
     Optional<PriceHistory> findTopByProductIdOrderByChangedAtDesc(Long productId);
     List<PriceHistory> findByProductIdOrderByChangedAtAsc(Long productId);
+
+    /**
+     * One keyset page of a product's history: rows in {@code [from, to)} strictly after
+     * {@code (afterAt, afterId)}, in {@code (changed_at, id)} order. Must be consumed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200")
+    })
+    @Query("""
+            select h from PriceHistory h
+             where h.product.id = :productId
+               and h.changedAt >= :from and h.changedAt < :to
+               and (h.changedAt, h.id) > (:afterAt, :afterId)
+             order by h.changedAt, h.id
+            """)
+    Stream<PriceHistory> streamPage(@Param("productId") Long productId,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    @Param("afterAt") LocalDateTime afterAt,
+                                    @Param("afterId") Long afterId,
+                                    Limit limit);
+
+    /** One row of {@link #findRecentChanges}. */
+    interface RecentChange {
+        Long getProductId();
+        long getDeltaCents();
+    }
+
+    /**
+     * Up to {@code perProduct} most recent changes of each product, newest first within a product,
+     * in one round trip. Each lateral subquery walks the (product_id, changed_at, id) index backwards.
+     */
+    @Query(value = """
+            select p.id as productId, ((h.new_price - h.old_price) * 100)::bigint as deltaCents
+              from products p
+             cross join lateral (
+                   select old_price, new_price, changed_at, id
+                     from price_history
+                    where product_id = p.id
+                    order by changed_at desc, id desc
+                    limit :perProduct) h
+             where p.id in (:productIds)
+             order by p.id, h.changed_at desc, h.id desc
+            """, nativeQuery = true)
+    List<RecentChange> findRecentChanges(@Param("productIds") Collection<Long> productIds,
+                                         @Param("perProduct") int perProduct);
 }
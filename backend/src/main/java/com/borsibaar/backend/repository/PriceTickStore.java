@@ -0,0 +1,376 @@
+package com.borsibaar.backend.repository;
+
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PriceChange;
+import com.borsibaar.backend.entity.PriceReason;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, memory-mapped log of price ticks, one directory of segment files per owner.
+ * <p>
+ * Every record is {@value #RECORD_BYTES} bytes: product id, epoch millis, old cents, new cents
+ * (8 bytes each), reason code (1), padding (3) and reason detail (4). Each product keeps the
+ * positions of its records in memory, so a time range is a binary search over that list followed
+ * by reads straight from the mapped segments, which relies on the price book stamping each
+ * product's moves in time order.
+ * <p>
+ * {@code price_history} stays the archival copy. The store is seeded from it on startup unless a
+ * {@value #SEEDED_MARKER} file says an earlier seed completed; a store without one, left behind by
+ * a seed that failed halfway, is wiped and seeded again. A seed that fails stops the startup.
+ */
+@Repository
+public class PriceTickStore {
+
+    static final int RECORD_BYTES = 40;
+    static final String SEEDED_MARKER = "seeded";
+
+    private static final int OFF_PRODUCT = 0;
+    private static final int OFF_TIME = 8;
+    private static final int OFF_OLD = 16;
+    private static final int OFF_NEW = 24;
+    private static final int OFF_REASON = 32;
+    private static final int OFF_DETAIL = 36;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final Path dir;
+    private final int segmentRecords;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentHashMap<Integer, OwnerLog> owners = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ProductIndex> products = new ConcurrentHashMap<>();
+
+    /** Receives one tick at a time, read in place from the mapped segment. */
+    @FunctionalInterface
+    public interface TickVisitor {
+        void visit(long productId, LocalDateTime changedAt, long oldCents, long newCents,
+                   PriceReason reason, int detail);
+    }
+
+    // The EntityManagerFactory dependency makes sure the schema exists before seeding
+    public PriceTickStore(JdbcTemplate jdbc,
+                          TransactionTemplate tx,
+                          EntityManagerFactory emf,
+                          @Value("${pricing.tick-store.dir:data/ticks}") Path dir,
+                          @Value("${pricing.tick-store.segment-records:65536}") int segmentRecords) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(dir);
+        if (!Files.exists(dir.resolve(SEEDED_MARKER))) {
+            seedFromHistory();
+            return;
+        }
+        for (Path ownerDir : ownerDirs()) {
+            String name = ownerDir.getFileName().toString();
+            int ownerId = Integer.parseInt(name.substring("owner-".length()));
+            owners.put(ownerId, OwnerLog.open(ownerId, ownerDir, segmentRecords, products));
+        }
+    }
+
+    private List<Path> ownerDirs() throws IOException {
+        try (Stream<Path> entries = Files.list(dir)) {
+            return entries.filter(Files::isDirectory)
+                    .filter(p -> p.getFileName().toString().startsWith("owner-"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        owners.values().forEach(OwnerLog::force);
+    }
+
+    /* ----------------------------- writing ----------------------------- */
+
+    public void append(List<PriceChange> changes) {
+        for (PriceChange c : changes) {
+            int ownerId = c.ownerId() == null ? 0 : c.ownerId();
+            owners.computeIfAbsent(ownerId, id -> OwnerLog.create(id, dir.resolve("owner-" + id), segmentRecords))
+                    .append(c.productId(), toMillis(c.changedAt()), c.oldCents(), c.newCents(),
+                            c.kind(), c.detail(), products);
+        }
+        owners.values().forEach(OwnerLog::force);
+    }
+
+    /**
+     * Marks the store as missing ticks, e.g. after an append failed, so the next start throws it
+     * away and seeds it again from {@code price_history}.
+     */
+    public void invalidate() {
+        try {
+            Files.deleteIfExists(dir.resolve(SEEDED_MARKER));
+        } catch (IOException e) {
+            log.error("Could not remove {}; delete it by hand to have the tick store reseeded",
+                    dir.resolve(SEEDED_MARKER), e);
+        }
+    }
+
+    /* ----------------------------- reading ----------------------------- */
+
+    public boolean contains(long productId) {
+        return products.containsKey(productId);
+    }
+
+    /** Ids of every product with at least one tick. */
+    public Set<Long> productIds() {
+        return products.keySet();
+    }
+
+    /** Owner of a product the store has ticks for, or {@code null}. */
+    public Integer ownerOf(long productId) {
+        ProductIndex index = products.get(productId);
+        return index == null ? null : index.log.ownerId;
+    }
+
+    /**
+     * Visits the product's ticks with {@code from <= changedAt < to} in time order.
+     * Either bound may be {@code null}.
+     *
+     * @return number of ticks visited
+     */
+    public int read(long productId, LocalDateTime from, LocalDateTime to, TickVisitor visitor) {
+        int[] visited = {0};
+        read(productId, from, to, -1, Integer.MAX_VALUE, (id, changedAt, oldCents, newCents, reason, detail) -> {
+            visited[0]++;
+            visitor.visit(id, changedAt, oldCents, newCents, reason, detail);
+        });
+        return visited[0];
+    }
+
+    /**
+     * Visits at most {@code limit} of the product's ticks with {@code from <= changedAt < to} that
+     * come after its {@code after}-th tick (-1 for none), in time order. A tick's index within its
+     * product never changes, so it works as a keyset cursor.
+     *
+     * @return index of the last tick visited, or -1 if none was
+     */
+    public int read(long productId, LocalDateTime from, LocalDateTime to, int after, int limit, TickVisitor visitor) {
+        ProductIndex index = products.get(productId);
+        if (index == null) return -1;
+
+        long[] positions;
+        int size;
+        synchronized (index.log) {
+            positions = index.positions;
+            size = index.size;
+        }
+
+        OwnerLog log = index.log;
+        int start = Math.max(after + 1, from == null ? 0 : log.lowerBound(positions, size, toMillis(from)));
+        int end = to == null ? size : log.lowerBound(positions, size, toMillis(to));
+        end = (int) Math.min(end, (long) start + limit);
+        for (int i = start; i < end; i++) {
+            log.visit(positions[i], visitor);
+        }
+        return end > start ? end - 1 : -1;
+    }
+
+    /* ----------------------------- seeding ----------------------------- */
+
+    private void seedFromHistory() throws IOException {
+        // whatever is here was written by a seed that never finished
+        for (Path ownerDir : ownerDirs()) {
+            try (Stream<Path> files = Files.list(ownerDir)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(ownerDir);
+        }
+
+        int[] seeded = {0};
+        try {
+            // inside a transaction so the driver streams with the fetch size instead of buffering
+            tx.executeWithoutResult(status -> jdbc.query(con -> {
+                var ps = con.prepareStatement("""
+                        SELECT h.product_id, p.user_id, h.changed_at, h.old_price, h.new_price, h.reason
+                          FROM price_history h
+                          JOIN products p ON p.id = h.product_id
+                         ORDER BY h.changed_at, h.id
+                        """);
+                ps.setFetchSize(10_000);
+                return ps;
+            }, rs -> {
+                int ownerId = rs.getInt(2);
+                String reason = rs.getString(6);
+                owners.computeIfAbsent(ownerId, id -> OwnerLog.create(id, dir.resolve("owner-" + id), segmentRecords))
+                        .append(rs.getLong(1), toMillis(rs.getTimestamp(3).toLocalDateTime()),
+                                Money.of(rs.getBigDecimal(4)).cents(), Money.of(rs.getBigDecimal(5)).cents(),
+                                PriceReason.parse(reason), PriceReason.parseDetail(reason), products);
+                seeded[0]++;
+            }));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Could not seed the price tick store in " + dir
+                    + " from price_history; it will be seeded again on the next start", e);
+        }
+        owners.values().forEach(OwnerLog::force);
+        Files.createFile(dir.resolve(SEEDED_MARKER));
+        if (seeded[0] > 0) log.info("Seeded price tick store with {} ticks from price_history", seeded[0]);
+    }
+
+    private static long toMillis(LocalDateTime t) {
+        return t.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /* ------------------------------ types ------------------------------ */
+
+    /** Positions (global record numbers within the owner's log) of one product's ticks. */
+    private static final class ProductIndex {
+        final OwnerLog log;
+        long[] positions = new long[8];
+        int size;
+
+        ProductIndex(OwnerLog log) {
+            this.log = log;
+        }
+
+        void add(long position) {
+            if (size == positions.length) {
+                // copy-on-grow so readers holding the old array keep a consistent view
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+    }
+
+    /** The segment files of one owner; all mutation happens under its monitor. */
+    private static final class OwnerLog {
+        final int ownerId;
+        final Path dir;
+        final int segmentRecords;
+        final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+        long count;
+
+        private OwnerLog(int ownerId, Path dir, int segmentRecords) {
+            this.ownerId = ownerId;
+            this.dir = dir;
+            this.segmentRecords = segmentRecords;
+        }
+
+        static OwnerLog create(int ownerId, Path dir, int segmentRecords) {
+            try {
+                Files.createDirectories(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new OwnerLog(ownerId, dir, segmentRecords);
+        }
+
+        static OwnerLog open(int ownerId, Path dir, int segmentRecords,
+                             ConcurrentHashMap<Long, ProductIndex> products) throws IOException {
+            OwnerLog log = new OwnerLog(ownerId, dir, segmentRecords);
+            for (int seg = 0; Files.exists(log.segmentPath(seg)); seg++) {
+                MappedByteBuffer buf = log.map(seg);
+                log.segments.add(buf);
+                for (int slot = 0; slot < segmentRecords; slot++) {
+                    long productId = buf.getLong(slot * RECORD_BYTES + OFF_PRODUCT);
+                    if (productId == 0) break; // zero-filled tail
+                    log.index(productId, log.count++, products);
+                }
+            }
+            return log;
+        }
+
+        synchronized void append(long productId, long millis, long oldCents, long newCents,
+                                 PriceReason reason, int detail, ConcurrentHashMap<Long, ProductIndex> products) {
+            int seg = (int) (count / segmentRecords);
+            if (seg == segments.size()) {
+                try {
+                    segments.add(map(seg));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            MappedByteBuffer buf = segments.get(seg);
+            int at = (int) (count % segmentRecords) * RECORD_BYTES;
+            buf.putLong(at + OFF_TIME, millis);
+            buf.putLong(at + OFF_OLD, oldCents);
+            buf.putLong(at + OFF_NEW, newCents);
+            buf.put(at + OFF_REASON, reason.code());
+            buf.putInt(at + OFF_DETAIL, detail);
+            buf.putLong(at + OFF_PRODUCT, productId); // written last: non-zero marks the record complete
+            index(productId, count++, products);
+        }
+
+        synchronized void force() {
+            segments.forEach(MappedByteBuffer::force);
+        }
+
+        void visit(long position, TickVisitor visitor) {
+            MappedByteBuffer buf = segments.get((int) (position / segmentRecords));
+            int at = (int) (position % segmentRecords) * RECORD_BYTES;
+            visitor.visit(
+                    buf.getLong(at + OFF_PRODUCT),
+                    fromMillis(buf.getLong(at + OFF_TIME)),
+                    buf.getLong(at + OFF_OLD),
+                    buf.getLong(at + OFF_NEW),
+                    PriceReason.fromCode(buf.get(at + OFF_REASON)),
+                    buf.getInt(at + OFF_DETAIL));
+        }
+
+        /** First index in {@code positions} whose tick is at or after {@code millis}. */
+        int lowerBound(long[] positions, int size, long millis) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (millisAt(positions[mid]) < millis) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private long millisAt(long position) {
+            MappedByteBuffer buf = segments.get((int) (position / segmentRecords));
+            return buf.getLong((int) (position % segmentRecords) * RECORD_BYTES + OFF_TIME);
+        }
+
+        private void index(long productId, long position, ConcurrentHashMap<Long, ProductIndex> products) {
+            products.computeIfAbsent(productId, id -> new ProductIndex(this)).add(position);
+        }
+
+        private Path segmentPath(int seg) {
+            return dir.resolve(String.format("%08d.ticks", seg));
+        }
+
+        private MappedByteBuffer map(int seg) throws IOException {
+            try (FileChannel ch = FileChannel.open(segmentPath(seg),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return ch.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_BYTES);
+            }
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.borsibaar.backend.repository;
 
 import com.borsibaar.backend.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +16,16 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByNameAndCategory_IdAndOwner_Id(String name, Long categoryId, Integer ownerId);
     List<Product> findByOwner_Id(Integer ownerId);
 
+    /** Not dirty-checked: live price state lives in the price book, not on the entity. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select p from Product p join fetch p.category")
+    List<Product> findAllWithCategory();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select p from Product p join fetch p.category where p.id in :ids")
+    List<Product> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select p from Product p join fetch p.category where p.owner.id = :ownerId")
+    List<Product> findAllWithCategoryByOwnerId(@Param("ownerId") Integer ownerId);
 }
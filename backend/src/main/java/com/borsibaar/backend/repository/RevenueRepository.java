@@ -0,0 +1,156 @@
+package com.borsibaar.backend.repository;
+
+import com.borsibaar.backend.entity.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hourly revenue rollups per owner and product. Writes are additive upserts so an order can be
+ * added, changed or removed with signed deltas; both tables move in a single statement that joins
+ * the caller's transaction.
+ */
+@Repository
+public class RevenueRepository {
+
+    private static final String APPLY = """
+            WITH v AS (
+                SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::numeric[]) AS v(product_id, quantity, revenue)
+            ), products AS (
+                INSERT INTO revenue_product_hourly AS r (owner_id, bucket_start, product_id, quantity, revenue)
+                SELECT ?, ?, v.product_id, v.quantity, v.revenue FROM v
+                ON CONFLICT (owner_id, bucket_start, product_id) DO UPDATE
+                   SET quantity = r.quantity + excluded.quantity,
+                       revenue = r.revenue + excluded.revenue
+            )
+            INSERT INTO revenue_owner_hourly AS r (owner_id, bucket_start, orders, revenue)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (owner_id, bucket_start) DO UPDATE
+               SET orders = r.orders + excluded.orders,
+                   revenue = r.revenue + excluded.revenue
+            """;
+
+    // Lines without a unit price get their order's total split by quantity, like RevenueService.lineRevenue
+    private static final String BACKFILL_PRODUCTS = """
+            INSERT INTO revenue_product_hourly (owner_id, bucket_start, product_id, quantity, revenue)
+            SELECT owner_id, bucket_start, product_id, sum(quantity), sum(revenue)
+              FROM (SELECT o.user_id AS owner_id,
+                           date_trunc('hour', o.created_at) AS bucket_start,
+                           i.product_id,
+                           i.quantity,
+                           COALESCE(i.unit_price * i.quantity,
+                                    round(o.total::numeric * i.quantity
+                                          / NULLIF(sum(i.quantity) OVER (PARTITION BY o.id), 0), 2)) AS revenue
+                      FROM orders o
+                      JOIN order_item i ON i.order_id = o.id
+                     WHERE i.product_id IS NOT NULL) lines
+             GROUP BY owner_id, bucket_start, product_id
+            """;
+
+    private static final String BACKFILL_OWNERS = """
+            INSERT INTO revenue_owner_hourly (owner_id, bucket_start, orders, revenue)
+            SELECT user_id, date_trunc('hour', created_at), count(*), sum(total::numeric)
+              FROM orders
+             GROUP BY user_id, date_trunc('hour', created_at)
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public RevenueRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** A signed per-product delta for one hour. */
+    public record Line(long productId, long quantity, Money revenue) {
+    }
+
+    /** Per-product totals over a time range. */
+    public record ProductTotal(long productId, String name, long quantity, Money revenue) {
+    }
+
+    /** One owner hour. */
+    public record HourTotal(LocalDateTime bucketStart, long orders, Money revenue) {
+    }
+
+    /** Adds signed deltas for one owner hour, product rows and the owner row in one round trip. */
+    public void apply(int ownerId, LocalDateTime hour, List<Line> lines, long orders, Money total) {
+        int n = lines.size();
+        Object[] ids = new Object[n], quantities = new Object[n], revenues = new Object[n];
+        for (int i = 0; i < n; i++) {
+            Line line = lines.get(i);
+            ids[i] = line.productId();
+            quantities[i] = line.quantity();
+            revenues[i] = line.revenue().toBigDecimal();
+        }
+        Timestamp bucket = Timestamp.valueOf(hour);
+
+        jdbc.update(con -> {
+            PreparedStatement ps = con.prepareStatement(APPLY);
+            ps.setArray(1, array(con, "bigint", ids));
+            ps.setArray(2, array(con, "bigint", quantities));
+            ps.setArray(3, array(con, "numeric", revenues));
+            ps.setInt(4, ownerId);
+            ps.setTimestamp(5, bucket);
+            ps.setInt(6, ownerId);
+            ps.setTimestamp(7, bucket);
+            ps.setLong(8, orders);
+            ps.setBigDecimal(9, total.toBigDecimal());
+            return ps;
+        });
+    }
+
+    public List<ProductTotal> productTotals(int ownerId, LocalDateTime from, LocalDateTime to) {
+        return jdbc.query("""
+                        SELECT r.product_id, p.name, sum(r.quantity), sum(r.revenue)
+                          FROM revenue_product_hourly r
+                          LEFT JOIN products p ON p.id = r.product_id
+                         WHERE r.owner_id = ? AND r.bucket_start >= ? AND r.bucket_start < ?
+                         GROUP BY r.product_id, p.name
+                        HAVING sum(r.quantity) <> 0
+                         ORDER BY sum(r.quantity) DESC, sum(r.revenue) DESC
+                        """,
+                (rs, row) -> new ProductTotal(rs.getLong(1), rs.getString(2), rs.getLong(3), Money.of(rs.getBigDecimal(4))),
+                ownerId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public List<HourTotal> hourTotals(int ownerId, LocalDateTime from, LocalDateTime to) {
+        return jdbc.query("""
+                        SELECT bucket_start, orders, revenue
+                          FROM revenue_owner_hourly
+                         WHERE owner_id = ? AND bucket_start >= ? AND bucket_start < ?
+                           AND orders <> 0
+                         ORDER BY bucket_start
+                        """,
+                (rs, row) -> new HourTotal(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2), Money.of(rs.getBigDecimal(3))),
+                ownerId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public boolean isEmpty() {
+        return !Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM revenue_owner_hourly)", Boolean.class));
+    }
+
+    /**
+     * Rebuilds both tables from {@code orders}. The truncate locks the tables, so orders saved
+     * meanwhile wait and then add their deltas on top of the rebuilt rows.
+     *
+     * @return number of owner hours written
+     */
+    @Transactional
+    public int backfill() {
+        jdbc.execute("TRUNCATE revenue_product_hourly, revenue_owner_hourly");
+        jdbc.update(BACKFILL_PRODUCTS);
+        return jdbc.update(BACKFILL_OWNERS);
+    }
+
+    private static java.sql.Array array(Connection con, String type, Object[] values) throws SQLException {
+        return con.createArrayOf(type, values);
+    }
+}
@@ -0,0 +1,113 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.configs.ReadReplicaDataSource;
+import com.borsibaar.backend.dtos.BoardDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Versioned reads of an owner's product board for screens that sync instead of refetching:
+ * ETags carry the {@link BoardVersions} version, {@code sinceVersion} asks for a delta, and a
+ * long-poll parks until the version moves.
+ */
+@Service
+public class BoardService {
+
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final BoardVersions versions;
+    private final PriceDecayService priceDecayService;
+    private final Executor executor;
+
+    @Value("${products.sync.max-wait-seconds:25}")
+    private int maxWaitSeconds;
+
+    public BoardService(ProductService productService,
+                        ProductRepository productRepository,
+                        BoardVersions versions,
+                        PriceDecayService priceDecayService,
+                        @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.versions = versions;
+        this.priceDecayService = priceDecayService;
+        this.executor = executor;
+    }
+
+    public long version(User owner) {
+        return versions.version(owner.getId());
+    }
+
+    /**
+     * The whole board, or only what changed since {@code since} when we still know. Always read from
+     * the primary: a replica behind the version it is paired with would drop changes for good.
+     */
+    @Transactional(readOnly = true)
+    public BoardDto board(User owner, Long since) {
+        return ReadReplicaDataSource.onPrimary(() -> {
+            // the version is read before the products, so a change racing this read is sent again next time
+            BoardVersions.Delta delta = versions.since(owner.getId(), since);
+
+            List<ProductDTO> products;
+            if (delta.full()) {
+                products = productService.findForUser(owner);
+            } else if (delta.changed().isEmpty()) {
+                products = List.of();
+            } else {
+                products = List.copyOf(productService.buildDtos(
+                        productRepository.findAllWithCategoryByIdIn(delta.changed())).values());
+            }
+
+            return BoardDto.builder()
+                    .version(delta.version())
+                    .full(delta.full())
+                    .products(products)
+                    .removed(delta.removed())
+                    .nextDecayAt(priceDecayService.nextTickAt())
+                    .build();
+        });
+    }
+
+    /**
+     * Runs {@code then} on the application executor once the owner's board moves past {@code since},
+     * or after {@code waitSeconds} if it does not.
+     */
+    public <T> CompletableFuture<T> afterChange(User owner, long since, int waitSeconds, Supplier<T> then) {
+        if (waitSeconds < 0 || waitSeconds > maxWaitSeconds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "wait must be between 0 and " + maxWaitSeconds);
+        }
+        return versions.awaitChange(owner.getId(), since)
+                .completeOnTimeout(since, waitSeconds, TimeUnit.SECONDS)
+                .thenApplyAsync(v -> then.get(), executor);
+    }
+
+    public static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /** The version named by an {@code If-None-Match} header, or {@code null}. */
+    public static Long versionOf(String ifNoneMatch) {
+        if (ifNoneMatch == null) return null;
+        String tag = ifNoneMatch.split(",")[0].trim();
+        if (tag.startsWith("W/")) tag = tag.substring(2);
+        tag = tag.replace("\"", "");
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
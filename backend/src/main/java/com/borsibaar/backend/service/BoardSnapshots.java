@@ -0,0 +1,160 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Each owner's board ({@code GET /api/products/my}) kept as ready-to-write JSON bytes, valid for
+ * one {@link BoardVersions} version.
+ * <p>
+ * The first request after the version moves rebuilds the snapshot once, concurrent requests for the
+ * same owner wait for that build, and everyone else gets the bytes as they are. A gzip copy is made
+ * on the first request that accepts it. At most {@code products.board-cache.max-owners} bars are
+ * kept; the least recently read is evicted.
+ */
+@Component
+public class BoardSnapshots {
+
+    private final ProductService productService;
+    private final BoardVersions versions;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<Integer, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Timer rebuilds;
+
+    @Value("${products.board-cache.max-owners:256}")
+    private int maxOwners;
+
+    @Value("${products.board-cache.gzip:true}")
+    private boolean gzipEnabled;
+
+    public BoardSnapshots(ProductService productService,
+                          BoardVersions versions,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+        this.hits = meterRegistry.counter("board.snapshot.requests", "result", "hit");
+        this.misses = meterRegistry.counter("board.snapshot.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("board.snapshot.evictions");
+        this.rebuilds = meterRegistry.timer("board.snapshot.rebuild");
+        Gauge.builder("board.snapshot.owners", slots, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    /** One serialized board. {@link #gzip()} is computed on first use and kept. */
+    public static final class Snapshot {
+        private final long version;
+        private final byte[] json;
+        private volatile byte[] gzip;
+
+        Snapshot(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public byte[] json() {
+            return json;
+        }
+
+        public byte[] gzip() {
+            byte[] out = gzip;
+            if (out == null) {
+                synchronized (this) {
+                    if (gzip == null) gzip = compress(json);
+                    out = gzip;
+                }
+            }
+            return out;
+        }
+    }
+
+    /** Whether to answer with the gzip copy, given the request's {@code Accept-Encoding}. */
+    public boolean useGzip(String acceptEncoding) {
+        return gzipEnabled && acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    /** The owner's current board, rebuilt if the version moved since it was serialized. */
+    public Snapshot get(User owner) {
+        Slot slot = slots.computeIfAbsent(owner.getId(), id -> new Slot());
+        slot.lastRead = clock.incrementAndGet();
+        long version = versions.version(owner.getId());
+
+        Snapshot current = slot.snapshot;
+        if (current != null && current.version >= version) {
+            hits.increment();
+            return current;
+        }
+        synchronized (slot) {
+            current = slot.snapshot;
+            if (current != null && current.version >= version) {
+                hits.increment(); // built by a concurrent request
+                return current;
+            }
+            misses.increment();
+            // the version is read before the products, so a racing change just triggers another build
+            long building = versions.version(owner.getId());
+            current = rebuilds.record(() -> new Snapshot(building, serialize(owner)));
+            slot.snapshot = current;
+        }
+        if (slots.size() > maxOwners) evictLeastRecentlyRead();
+        return current;
+    }
+
+    private void evictLeastRecentlyRead() {
+        while (slots.size() > maxOwners) {
+            slots.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().lastRead))
+                    .ifPresent(e -> {
+                        if (slots.remove(e.getKey(), e.getValue())) evictions.increment();
+                    });
+        }
+    }
+
+    private byte[] serialize(User owner) {
+        try {
+            return objectMapper.writeValueAsBytes(productService.findForUser(owner));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize board of owner " + owner.getId(), e);
+        }
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Slot {
+        volatile Snapshot snapshot;
+        volatile long lastRead;
+    }
+}
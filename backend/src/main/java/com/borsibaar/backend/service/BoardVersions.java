@@ -0,0 +1,170 @@
+package com.borsibaar.backend.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Version counter of every owner's product board, bumped on any sale, price move or catalog edit.
+ * <p>
+ * Versions come from one sequence seeded with the boot time in millis, so a client holding a
+ * version from before a restart sees it as too old and gets the full board again. Per owner we keep
+ * the version at which each product last changed and a bounded list of removals, which is enough to
+ * answer "what changed since version N" without touching the database. Bumps made inside a
+ * transaction only become visible after it commits.
+ */
+@Component
+public class BoardVersions implements PriceBook.Listener {
+
+    // Removals remembered per owner; older clients get the full board instead of a delta
+    private static final int MAX_REMOVALS = 1_024;
+
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+    private final long bootVersion = sequence.get();
+    private final ConcurrentHashMap<Integer, Board> boards = new ConcurrentHashMap<>();
+
+    public BoardVersions(PriceBook priceBook) {
+        priceBook.addListener(this);
+    }
+
+    /** What changed on an owner's board since a client's version. */
+    public record Delta(long version, boolean full, List<Long> changed, List<Long> removed) {
+    }
+
+    /* ----------------------------- reading ----------------------------- */
+
+    public long version(Integer ownerId) {
+        Board board = boards.get(ownerKey(ownerId));
+        return board == null ? bootVersion : board.version;
+    }
+
+    /** {@code full} when {@code since} is missing, from another run, or older than what we remember. */
+    public Delta since(Integer ownerId, Long since) {
+        Board board = boards.get(ownerKey(ownerId));
+        if (board == null) {
+            boolean current = since != null && since == bootVersion;
+            return new Delta(bootVersion, !current, List.of(), List.of());
+        }
+        synchronized (board) {
+            if (since == null || since < board.floor || since > board.version) {
+                return new Delta(board.version, true, List.of(), List.of());
+            }
+            List<Long> changed = new ArrayList<>();
+            board.changed.forEach((id, v) -> {
+                if (v > since) changed.add(id);
+            });
+            List<Long> removed = new ArrayList<>();
+            board.removed.forEach((id, v) -> {
+                if (v > since) removed.add(id);
+            });
+            return new Delta(board.version, false, changed, removed);
+        }
+    }
+
+    /**
+     * Completes with the new version once the owner's board moves past {@code since}; at once if it
+     * already has. The caller must complete the future (e.g. on timeout) when it stops waiting.
+     */
+    public CompletableFuture<Long> awaitChange(Integer ownerId, long since) {
+        Board board = boards.computeIfAbsent(ownerKey(ownerId), id -> new Board(bootVersion));
+        CompletableFuture<Long> waiter = new CompletableFuture<>();
+        board.waiters.add(waiter);
+        waiter.whenComplete((v, e) -> board.waiters.remove(waiter));
+        long now = board.version; // read after registering so a concurrent bump cannot slip between
+        if (now > since) waiter.complete(now);
+        return waiter;
+    }
+
+    /* ----------------------------- writing ----------------------------- */
+
+    @Override
+    public void onUpdate(PriceBook.Update update) {
+        changed(update.ownerId(), update.productId());
+    }
+
+    /** A product was created, edited, sold or repriced. */
+    public void changed(Integer ownerId, long productId) {
+        afterCommit(() -> bump(ownerId, board -> {
+            board.removed.remove(productId);
+            board.changed.put(productId, board.version);
+        }));
+    }
+
+    public void removed(Integer ownerId, long productId) {
+        afterCommit(() -> bump(ownerId, board -> {
+            board.changed.remove(productId);
+            board.removed.put(productId, board.version);
+            if (board.removed.size() > MAX_REMOVALS) {
+                Iterator<Long> oldest = board.removed.values().iterator();
+                board.floor = oldest.next();
+                oldest.remove();
+            }
+        }));
+    }
+
+    /** Something that touches many products at once (e.g. a category rename); clients start over. */
+    public void resync(Integer ownerId) {
+        afterCommit(() -> bump(ownerId, board -> {
+            board.floor = board.version;
+            board.changed.clear();
+            board.removed.clear();
+        }));
+    }
+
+    private void bump(Integer ownerId, Consumer<Board> change) {
+        Board board = boards.computeIfAbsent(ownerKey(ownerId), id -> new Board(bootVersion));
+        long version;
+        synchronized (board) {
+            version = sequence.incrementAndGet();
+            board.version = version;
+            change.accept(board);
+        }
+        for (CompletableFuture<Long> waiter : board.waiters) {
+            waiter.complete(version);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static int ownerKey(Integer ownerId) {
+        return ownerId == null ? 0 : ownerId;
+    }
+
+    /* ------------------------------ types ------------------------------ */
+
+    private static final class Board {
+        volatile long version;
+        long floor;
+        final Map<Long, Long> changed = new HashMap<>();       // product id -> version of its last change
+        final Map<Long, Long> removed = new LinkedHashMap<>(); // product id -> version of removal, oldest first
+        final Set<CompletableFuture<Long>> waiters = ConcurrentHashMap.newKeySet();
+
+        Board(long version) {
+            this.version = version;
+            this.floor = version;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.PriceChange;
+import com.borsibaar.backend.repository.PriceTickStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Open/high/low/close/volume buckets per product at 1m, 5m and 1h, kept up to date from
+ * {@link PriceBook} updates so a chart request costs O(buckets) instead of O(history).
+ * <p>
+ * Each series is a bounded ring holding only buckets that saw a sale or a price move; the
+ * oldest bucket is dropped once the ring is full. On startup the rings are rebuilt from the
+ * {@link PriceTickStore} (without volume, which the tick store does not record).
+ */
+@Component
+public class CandleBook implements PriceBook.Listener {
+
+    public enum Interval {
+        ONE_MINUTE("1m", 60_000L, 1_440),       // a day
+        FIVE_MINUTES("5m", 300_000L, 2_016),    // a week
+        ONE_HOUR("1h", 3_600_000L, 720);        // a month
+
+        private final String label;
+        private final long millis;
+        private final int capacity;
+
+        Interval(String label, long millis, int capacity) {
+            this.label = label;
+            this.millis = millis;
+            this.capacity = capacity;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public long millis() {
+            return millis;
+        }
+
+        public static Interval parse(String label) {
+            for (Interval i : values()) {
+                if (i.label.equals(label)) return i;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown interval: " + label);
+        }
+    }
+
+    /** One bucket as read from a series; prices in cents. */
+    public record Candle(LocalDateTime start, long open, long high, long low, long close, long volume) {
+    }
+
+    @FunctionalInterface
+    public interface CandleVisitor {
+        void visit(Candle candle);
+    }
+
+    private final PriceTickStore tickStore;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentHashMap<Long, Series[]> products = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Map<Long, Series[]>> byOwner = new ConcurrentHashMap<>();
+
+    public CandleBook(PriceTickStore tickStore, PriceBook priceBook) {
+        this.tickStore = tickStore;
+        priceBook.addListener(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long since = toMillis(LocalDateTime.now()) - Interval.ONE_HOUR.millis * Interval.ONE_HOUR.capacity;
+        int[] ticks = {0};
+        for (long productId : tickStore.productIds()) {
+            Series[] series = seriesFor(productId, tickStore.ownerOf(productId));
+            tickStore.read(productId, fromMillis(since), null, (id, changedAt, oldCents, newCents, reason, detail) -> {
+                long t = toMillis(changedAt);
+                for (Series s : series) s.record(t, oldCents, newCents, 0);
+                ticks[0]++;
+            });
+        }
+        log.info("Candle book rebuilt from {} ticks", ticks[0]);
+    }
+
+    @Override
+    public void onUpdate(PriceBook.Update update) {
+        Series[] series = seriesFor(update.productId(), update.ownerId());
+        long t = toMillis(update.at());
+        for (PriceChange c : update.changes()) {
+            for (Series s : series) s.record(t, c.oldCents(), c.newCents(), 0);
+        }
+        if (update.sold() > 0) {
+            for (Series s : series) s.record(t, update.priceCents(), update.priceCents(), update.sold());
+        }
+    }
+
+    /**
+     * Visits the product's non-empty buckets starting in {@code [from, to)}, oldest first.
+     * Either bound may be {@code null}.
+     */
+    public int read(long productId, Interval interval, LocalDateTime from, LocalDateTime to, CandleVisitor visitor) {
+        Series[] series = products.get(productId);
+        if (series == null) return 0;
+        return series[interval.ordinal()].read(
+                from == null ? Long.MIN_VALUE : toMillis(from),
+                to == null ? Long.MAX_VALUE : toMillis(to),
+                visitor);
+    }
+
+    /** Product ids of one owner that have at least one bucket in any interval. */
+    public Iterable<Long> productsOf(Integer ownerId) {
+        Map<Long, Series[]> owned = byOwner.get(ownerKey(ownerId));
+        return owned == null ? List.of() : owned.keySet();
+    }
+
+    @Override
+    public void onForget(long productId) {
+        products.remove(productId);
+        byOwner.values().forEach(owned -> owned.remove(productId));
+    }
+
+    private Series[] seriesFor(long productId, Integer ownerId) {
+        return products.computeIfAbsent(productId, id -> {
+            Series[] series = Arrays.stream(Interval.values()).map(Series::new).toArray(Series[]::new);
+            byOwner.computeIfAbsent(ownerKey(ownerId), o -> new ConcurrentHashMap<>()).put(id, series);
+            return series;
+        });
+    }
+
+    private static int ownerKey(Integer ownerId) {
+        return ownerId == null ? 0 : ownerId;
+    }
+
+    private static long toMillis(LocalDateTime t) {
+        return t.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /* ------------------------------ types ------------------------------ */
+
+    /**
+     * Ring of buckets for one product at one interval, in parallel primitive arrays that
+     * grow on demand up to the interval's capacity.
+     */
+    static final class Series {
+        private final long width;
+        private final int capacity;
+
+        private long[] start = new long[8];
+        private long[] open = new long[8];
+        private long[] high = new long[8];
+        private long[] low = new long[8];
+        private long[] close = new long[8];
+        private long[] volume = new long[8];
+        private int head; // slot of the oldest bucket
+        private int size;
+
+        Series(Interval interval) {
+            this.width = interval.millis;
+            this.capacity = interval.capacity;
+        }
+
+        /**
+         * Folds one event into its bucket: a move from {@code before} to {@code after} cents with
+         * {@code sold} units. A new bucket opens at {@code before}.
+         */
+        synchronized void record(long millis, long before, long after, long sold) {
+            long bucket = Math.floorDiv(millis, width) * width;
+            int last = size == 0 ? -1 : slot(size - 1);
+
+            if (last < 0 || start[last] < bucket) {
+                last = push(bucket, before);
+            } else if (start[last] > bucket) {
+                // late event for an older bucket; only the newest bucket is mutable
+                return;
+            }
+
+            high[last] = Math.max(high[last], Math.max(before, after));
+            low[last] = Math.min(low[last], Math.min(before, after));
+            close[last] = after;
+            volume[last] += sold;
+        }
+
+        synchronized int read(long from, long to, CandleVisitor visitor) {
+            int first = lowerBound(from);
+            int visited = 0;
+            for (int i = first; i < size; i++) {
+                int at = slot(i);
+                if (start[at] >= to) break;
+                visitor.visit(new Candle(fromMillis(start[at]), open[at], high[at], low[at], close[at], volume[at]));
+                visited++;
+            }
+            return visited;
+        }
+
+        private int push(long bucket, long openCents) {
+            if (size == capacity) {
+                head = (head + 1) % start.length;
+                size--;
+            } else if (size == start.length) {
+                grow();
+            }
+            int at = slot(size++);
+            start[at] = bucket;
+            open[at] = high[at] = low[at] = close[at] = openCents;
+            volume[at] = 0;
+            return at;
+        }
+
+        private void grow() {
+            int n = Math.min(capacity, start.length * 2);
+            start = unroll(start, n);
+            open = unroll(open, n);
+            high = unroll(high, n);
+            low = unroll(low, n);
+            close = unroll(close, n);
+            volume = unroll(volume, n);
+            head = 0;
+        }
+
+        private long[] unroll(long[] a, int n) {
+            long[] out = new long[n];
+            for (int i = 0; i < size; i++) out[i] = a[slot(i)];
+            return out;
+        }
+
+        /** First logical index whose bucket starts at or after {@code millis}. */
+        private int lowerBound(long millis) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (start[slot(mid)] < millis) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private int slot(int i) {
+            return (head + i) % start.length;
+        }
+    }
+}
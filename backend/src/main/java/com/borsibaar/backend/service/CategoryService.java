@@ -14,9 +14,11 @@ import java.util.List;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final BoardVersions boardVersions;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, BoardVersions boardVersions) {
         this.categoryRepository = categoryRepository;
+        this.boardVersions = boardVersions;
     }
 
     public List<Category> findAll(User user) {
@@ -50,7 +52,9 @@ public class CategoryService {
         }
 
         category.setName(dto.getName().trim());
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        boardVersions.resync(user.getId()); // every product of the category shows the new name
+        return saved;
     }
 
     public void delete(Long id, User user) {
@@ -62,5 +66,6 @@ public class CategoryService {
         }
 
         categoryRepository.delete(category);
+        boardVersions.resync(user.getId());
     }
 }
@@ -0,0 +1,34 @@
+package com.borsibaar.backend.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/** Opaque keyset cursors: the raw position is base64url encoded so clients treat it as a token. */
+final class Cursors {
+
+    private Cursors() {
+    }
+
+    static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** @return the raw position, or {@code null} for a missing cursor */
+    static String decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (decoded.isEmpty()) throw invalid();
+            return decoded;
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+}
@@ -7,9 +7,14 @@ import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 public class JwtService {
@@ -20,12 +25,29 @@ public class JwtService {
     @Value("${security.jwt.expiration-ms:86400000}")
     private long jwtExpirationMs;
 
+    // Verified tokens remembered by SHA-256 digest until they expire, oldest first out when full
+    @Value("${security.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
     private Key signingKey;
+    private JwtParser parser; // immutable and thread-safe, built once
+
+    private final Map<ByteBuffer, VerifiedToken> verified = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, VerifiedToken> eldest) {
+            return size() > verifiedCacheSize;
+        }
+    };
+
+    /** What the filter needs from a token whose signature and expiry have been checked. */
+    public record VerifiedToken(String subject, long issuedAt, long expiresAt) {
+    }
 
     @PostConstruct
     private void init() {
         byte[] keyBytes = Decoders.BASE64.decode(secretKey);
         signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
     }
 
     public String generateTokenForUser(String email) {
@@ -39,38 +61,47 @@ public class JwtService {
                 .compact();
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+    /**
+     * Parses and verifies the token once, or returns the result of an earlier verification of the
+     * same token that has not expired yet. Throws the parser's {@link JwtException} if invalid.
+     */
+    public VerifiedToken verify(String token) {
+        ByteBuffer digest = digest(token);
+        synchronized (verified) {
+            VerifiedToken cached = verified.get(digest);
+            if (cached != null) {
+                if (cached.expiresAt() > System.currentTimeMillis()) return cached;
+                verified.remove(digest); // parse again so the caller gets the usual ExpiredJwtException
+            }
+        }
+
         Claims claims = safeParseClaims(token);
-        return claimsResolver.apply(claims);
+        VerifiedToken result = new VerifiedToken(claims.getSubject(),
+                claims.getIssuedAt() == null ? 0L : claims.getIssuedAt().getTime(),
+                claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime());
+        if (claims.getExpiration() != null) {
+            synchronized (verified) {
+                verified.put(digest, result);
+            }
+        }
+        return result;
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    int verifiedCount() {
+        synchronized (verified) {
+            return verified.size();
+        }
     }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private Claims safeParseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    public boolean isTokenValid(String token, String email) {
+    private static ByteBuffer digest(String token) {
         try {
-            final String username = extractUsername(token);
-            return username.equals(email) && !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
-
-    private boolean isTokenExpired(String token) {
-        Date exp = extractExpiration(token);
-        return exp.before(new Date());
-    }
-
-    private Claims safeParseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
 }
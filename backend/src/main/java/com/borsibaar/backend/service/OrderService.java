@@ -1,48 +1,158 @@
 package com.borsibaar.backend.service;
 
+import com.borsibaar.backend.configs.MetricsConfiguration;
+import com.borsibaar.backend.dtos.OrderBatchResultDto;
 import com.borsibaar.backend.dtos.OrderDto;
 import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.OrderPageDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.dtos.QueuedOrderDto;
 import com.borsibaar.backend.entity.*;
+import com.borsibaar.backend.entity.PriceChange;
+import com.borsibaar.backend.repository.OrderItemRepository;
 import com.borsibaar.backend.repository.OrderRepository;
-import com.borsibaar.backend.repository.PriceHistoryRepository;
 import com.borsibaar.backend.repository.ProductRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class OrderService {
 
     private final OrderRepository orderRepo;
+    private final OrderItemRepository orderItemRepo;
     private final ProductRepository productRepo;
-    private final PriceHistoryRepository priceHistoryRepo;
+    private final PriceBook priceBook;
     private final ProductService productService;
+    private final RevenueService revenueService;
+    private final MeterRegistry meterRegistry;
+
+    private static final long UP_PCT   = 10; // 10% up
+    private static final long DOWN_PCT = 6;  // 6% down
+
+    private static final int CLIENT_ID_LENGTH = 64; // orders.client_id
+
+    // Open bounds for the date range; both fit a Postgres timestamp
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Value("${orders.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${orders.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${orders.batch.max-size:1000}")
+    private int maxBatchSize;
 
     public OrderService(OrderRepository orderRepo,
+                        OrderItemRepository orderItemRepo,
                         ProductRepository productRepo,
-                        PriceHistoryRepository priceHistoryRepo,
-                        ProductService productService) {
+                        PriceBook priceBook,
+                        ProductService productService,
+                        RevenueService revenueService,
+                        MeterRegistry meterRegistry) {
         this.orderRepo = orderRepo;
+        this.orderItemRepo = orderItemRepo;
         this.productRepo = productRepo;
-        this.priceHistoryRepo = priceHistoryRepo;
+        this.priceBook = priceBook;
         this.productService = productService;
+        this.revenueService = revenueService;
+        this.meterRegistry = meterRegistry;
     }
 
     public List<Order> findAll() {
         return orderRepo.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public List<OrderDto> getAllOrders() {
+        return toDtos(orderRepo.findAllWithItems(), Order::getItems);
+    }
+
     public List<OrderDto> getMyOrders(User user) {
-        return orderRepo.findByUser(user).stream().map(order -> {
-            List<OrderItemDto> itemDtos = order.getItems().stream()
+        return toDtos(orderRepo.findAllWithItemsByUserId(user.getId()), Order::getItems);
+    }
+
+    /**
+     * A keyset page of orders, newest first; {@code user == null} pages over everyone's orders.
+     * Costs three queries whatever the page size: orders, their items with products, and recent price history.
+     * Read from the replica when one is configured, so a page may trail the newest orders slightly.
+     */
+    @Transactional(readOnly = true)
+    public OrderPageDto getOrderPage(User user, LocalDateTime from, LocalDateTime to, String cursor, Integer size) {
+        int limit = size == null ? defaultPageSize : size;
+        if (limit < 1 || limit > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + maxPageSize);
+        }
+
+        LocalDateTime beforeAt = MAX_TIME;
+        long beforeId = Long.MAX_VALUE;
+        String position = Cursors.decode(cursor);
+        if (position != null) {
+            String[] parts = position.split(",", 2);
+            try {
+                beforeAt = LocalDateTime.parse(parts[0]);
+                beforeId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw Cursors.invalid();
+            }
+        }
+
+        LocalDateTime lower = from == null ? MIN_TIME : from;
+        LocalDateTime upper = to == null ? MAX_TIME : to;
+        // one extra row tells us whether there is a next page
+        List<Order> orders = new ArrayList<>(user == null
+                ? orderRepo.findPage(lower, upper, beforeAt, beforeId, Limit.of(limit + 1))
+                : orderRepo.findPageByUserId(user.getId(), lower, upper, beforeAt, beforeId, Limit.of(limit + 1)));
+
+        String next = null;
+        if (orders.size() > limit) {
+            orders.remove(limit);
+            Order last = orders.get(limit - 1);
+            next = Cursors.encode(last.getCreatedAt() + "," + last.getId());
+        }
+
+        Map<Long, List<OrderItem>> items = orders.isEmpty() ? Map.of() : orderItemRepo
+                .findAllWithProductByOrderIdIn(orders.stream().map(Order::getId).toList()).stream()
+                .collect(Collectors.groupingBy(i -> i.getOrder().getId()));
+
+        return OrderPageDto.builder()
+                .items(toDtos(orders, o -> items.getOrDefault(o.getId(), List.of())))
+                .nextCursor(next)
+                .build();
+    }
+
+    /** Maps orders whose items and products are already loaded; product DTOs are built in one batch. */
+    private List<OrderDto> toDtos(List<Order> orders, Function<Order, List<OrderItem>> itemsOf) {
+        Map<Long, ProductDTO> products = productService.buildDtos(orders.stream()
+                .flatMap(order -> itemsOf.apply(order).stream())
+                .map(OrderItem::getProduct)
+                .filter(Objects::nonNull)
+                .toList());
+
+        return orders.stream().map(order -> {
+            List<OrderItemDto> itemDtos = itemsOf.apply(order).stream()
                     .map(item -> OrderItemDto.builder()
                             .quantity(item.getQuantity())
-                            .product(productService.buildDto(item.getProduct()))
+                            .product(item.getProduct() == null ? null : products.get(item.getProduct().getId()))
                             .build())
                     .toList();
 
@@ -55,47 +165,196 @@ public class OrderService {
         }).toList();
     }
 
+    /** Timed as {@code orders.save} by owner, line count and outcome (the commit is not included). */
     @Transactional
     public Order save(OrderDto dto, User user) {
         if (dto.getItems() == null || dto.getItems().isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order must contain at least one item");
         }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+
+            // Resolve every line up front so a missing product fails before any price moves
+            Map<Long, Product> products = resolveProducts(dto.getItems());
+
+            Order order = price(dto.getItems(), products, user, LocalDateTime.now());
+            products.values().forEach(priceBook::applyTo);
+            revenueService.recordOrder(order);
+
+            Order saved = orderRepo.save(order);
+            outcome = "success";
+            return saved;
+        } finally {
+            sample.stop(meterRegistry.timer("orders.save",
+                    "owner", MetricsConfiguration.ownerTag(user.getId()),
+                    "lines", linesTag(dto.getItems().size()),
+                    "outcome", outcome));
+        }
+    }
+
+    /** Line counts bucketed, so the tag stays low-cardinality. */
+    private static String linesTag(int lines) {
+        if (lines <= 2) return Integer.toString(lines);
+        if (lines <= 5) return "3-5";
+        if (lines <= 10) return "6-10";
+        return "11+";
+    }
+
+    /**
+     * Ingests orders a tablet queued while offline, all in one transaction. Orders are priced in
+     * the order they were taken, so each product's price moves in the same sequence it would have
+     * live; the moves themselves are stamped by the price book as they are made, while each order
+     * keeps its own time (a future one is clamped to now). Products are looked up once for the whole batch and the inserts go
+     * out in JDBC batches.
+     * <p>
+     * An order that is empty or names an unknown product is rejected on its own; the rest still go
+     * in. An order whose {@code clientId} the user already sent, in an earlier batch or earlier in
+     * this one, is not taken again: it comes back CREATED with the existing order's id, so a tablet
+     * can resend a batch whose response it lost. Two copies of a batch racing each other fail one
+     * of them on the orders' unique client id. Results are returned in the order they were sent.
+     * Timed as {@code orders.batch.save}, with {@code orders.batch.orders} counting created,
+     * replayed and rejected orders.
+     */
+    @Transactional
+    public List<OrderBatchResultDto> saveBatch(List<QueuedOrderDto> queued, User user) {
+        if (queued == null || queued.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch must contain at least one order");
+        }
+        if (queued.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBatchSize + " orders per batch");
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
         LocalDateTime now = LocalDateTime.now();
+        Map<Long, Product> products = findProducts(queued.stream()
+                .filter(q -> q.getItems() != null)
+                .flatMap(q -> q.getItems().stream())
+                .toList());
+
+        // by client id, the orders already taken: stored by an earlier batch, then this one's
+        Map<String, Order> taken = new HashMap<>();
+        Set<String> clientIds = queued.stream()
+                .map(QueuedOrderDto::getClientId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (!clientIds.isEmpty()) {
+            orderRepo.findByUserIdAndClientIdIn(user.getId(), clientIds)
+                    .forEach(order -> taken.put(order.getClientId(), order));
+        }
+
+        OrderBatchResultDto[] results = new OrderBatchResultDto[queued.size()];
+        Map<Integer, Order> created = new HashMap<>();
+        List<Order> orders = new ArrayList<>();
+
+        // stable, so orders with the same time keep the order they were sent in
+        List<Integer> byTime = IntStream.range(0, queued.size()).boxed()
+                .sorted(Comparator.comparing(i -> takenAt(queued.get(i), now)))
+                .toList();
+        for (int i : byTime) {
+            QueuedOrderDto q = queued.get(i);
+            Order earlier = q.getClientId() == null ? null : taken.get(q.getClientId());
+            if (earlier != null) {
+                created.put(i, earlier);
+                continue;
+            }
+            String error = rejection(q, products);
+            if (error != null) {
+                results[i] = OrderBatchResultDto.builder()
+                        .clientId(q.getClientId())
+                        .status(OrderBatchResultDto.Status.REJECTED)
+                        .error(error)
+                        .build();
+                continue;
+            }
+            Order order = price(q.getItems(), products, user, takenAt(q, now));
+            order.setClientId(q.getClientId());
+            if (q.getClientId() != null) taken.put(q.getClientId(), order);
+            orders.add(order);
+            created.put(i, order);
+        }
 
+        if (!orders.isEmpty()) {
+            products.values().forEach(priceBook::applyTo);
+            revenueService.recordOrders(orders);
+            orderRepo.saveAll(orders);
+        }
+
+        for (Map.Entry<Integer, Order> c : created.entrySet()) {
+            int i = c.getKey();
+            Order order = c.getValue();
+            results[i] = OrderBatchResultDto.builder()
+                    .clientId(queued.get(i).getClientId())
+                    .status(OrderBatchResultDto.Status.CREATED)
+                    .orderId(order.getId())
+                    .total(order.getTotal())
+                    .build();
+        }
+
+        String owner = MetricsConfiguration.ownerTag(user.getId());
+        meterRegistry.counter("orders.batch.orders", "owner", owner, "result", "created").increment(orders.size());
+        meterRegistry.counter("orders.batch.orders", "owner", owner, "result", "replayed").increment(created.size() - orders.size());
+        meterRegistry.counter("orders.batch.orders", "owner", owner, "result", "rejected").increment(queued.size() - created.size());
+        sample.stop(meterRegistry.timer("orders.batch.save", "owner", owner));
+        return List.of(results);
+    }
+
+    /**
+     * Builds an order from resolved products, counting each sale and moving its price in the
+     * price book (persisted by PriceFlushService). {@code createdAt} is the order's own time; the
+     * sales and price moves are recorded at the time the book applies them.
+     */
+    private Order price(List<OrderItemDto> lines, Map<Long, Product> products, User user,
+                        LocalDateTime createdAt) {
         Order order = Order.builder()
-                .createdAt(now)
+                .createdAt(createdAt)
                 .user(user)
                 .build();
 
-        List<OrderItem> items = dto.getItems().stream().map(itemDto -> {
-            Product product = productRepo.findById(itemDto.getProduct().getId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-
-            long oldCount = product.getSalesCount() == null ? 0L : product.getSalesCount();
-            product.setSalesCount(oldCount + itemDto.getQuantity());
-
-            // Adjust price dynamically
-            adjustPrice(product, isCocktailOrShot(product.getCategoryName()), now);
+        long totalCents = 0;
+        List<OrderItem> items = new ArrayList<>(lines.size());
+        for (OrderItemDto itemDto : lines) {
+            Product product = products.get(itemDto.getProduct().getId());
 
-            product.setLastSaleAt(now);
-            productRepo.save(product);
+            long unitCents = priceBook.update(product, entry -> {
+                entry.sell(itemDto.getQuantity());
+                adjustPrice(entry, isCocktailOrShot(entry.categoryName()));
+                return entry.priceCents();
+            });
+            totalCents += unitCents * itemDto.getQuantity();
 
-            return OrderItem.builder()
+            items.add(OrderItem.builder()
                     .product(product)
                     .quantity(itemDto.getQuantity())
+                    .unitPrice(Money.ofCents(unitCents))
                     .order(order)
-                    .build();
-        }).toList();
-
-        BigDecimal total = items.stream()
-                .map(i -> i.getProduct().getPrice().multiply(BigDecimal.valueOf(i.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    .build());
+        }
 
         order.setItems(items);
-        order.setTotal(total.doubleValue());
+        order.setTotal(Money.ofCents(totalCents));
+        return order;
+    }
 
-        return orderRepo.save(order);
+    private static LocalDateTime takenAt(QueuedOrderDto q, LocalDateTime now) {
+        return q.getCreatedAt() == null || q.getCreatedAt().isAfter(now) ? now : q.getCreatedAt();
+    }
+
+    /** Why a queued order cannot be taken, or {@code null} if it can. */
+    private static String rejection(QueuedOrderDto q, Map<Long, Product> products) {
+        if (q.getClientId() != null && q.getClientId().length() > CLIENT_ID_LENGTH) {
+            return "clientId must be at most " + CLIENT_ID_LENGTH + " characters";
+        }
+        if (q.getItems() == null || q.getItems().isEmpty()) {
+            return "Order must contain at least one item";
+        }
+        for (OrderItemDto item : q.getItems()) {
+            if (item.getProduct() == null || !products.containsKey(item.getProduct().getId())) {
+                return "Product not found";
+            }
+        }
+        return null;
     }
 
     @Transactional
@@ -107,29 +366,37 @@ public class OrderService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Cannot modify another user's order");
         }
 
+        List<OrderItem> oldItems = List.copyOf(order.getItems());
+        Money oldTotal = order.getTotal();
         order.getItems().clear();
 
+        Map<Long, Product> products = resolveProducts(dto.getItems());
+        products.values().forEach(priceBook::applyTo);
+
         List<OrderItem> items = dto.getItems().stream().map(itemDto -> {
-            Product product = productRepo.findById(itemDto.getProduct().getId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            Product product = products.get(itemDto.getProduct().getId());
 
             return OrderItem.builder()
                     .product(product)
                     .quantity(itemDto.getQuantity())
+                    .unitPrice(product.getPrice())
                     .order(order)
                     .build();
         }).toList();
 
-        BigDecimal total = items.stream()
-                .map(i -> i.getProduct().getPrice().multiply(BigDecimal.valueOf(i.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Money total = items.stream()
+                .map(i -> i.getProduct().getPrice().times(i.getQuantity()))
+                .reduce(Money.ZERO, Money::plus);
 
-        order.setItems(items);
-        order.setTotal(total.doubleValue());
+        // refill the managed collection; replacing it would break orphan removal
+        order.getItems().addAll(items);
+        order.setTotal(total);
+        revenueService.replaceLines(order, oldItems, oldTotal);
 
         return orderRepo.save(order);
     }
 
+    @Transactional
     public void delete(Long id, User user) {
         Order order = orderRepo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
@@ -138,9 +405,33 @@ public class OrderService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Cannot delete another user's order");
         }
 
+        revenueService.removeOrder(order);
         orderRepo.delete(order);
     }
 
+    /** Loads all products of an order in one query, category included. */
+    private Map<Long, Product> resolveProducts(List<OrderItemDto> items) {
+        Map<Long, Product> products = findProducts(items);
+        if (items.stream().anyMatch(i -> !products.containsKey(i.getProduct().getId()))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+        return products;
+    }
+
+    /** The products the lines name that exist, category included, in one query. */
+    private Map<Long, Product> findProducts(List<OrderItemDto> items) {
+        Set<Long> ids = items.stream()
+                .map(OrderItemDto::getProduct)
+                .filter(Objects::nonNull)
+                .map(ProductDTO::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) return Map.of();
+
+        return productRepo.findAllWithCategoryByIdIn(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
     private boolean isCocktailOrShot(String categoryName) {
         return categoryName != null &&
                 (categoryName.equalsIgnoreCase("cocktails") || categoryName.equalsIgnoreCase("shots"));
@@ -148,29 +439,14 @@ public class OrderService {
 
     /**
      * Adjusts the price: cocktails/shots go up by 10%, others go down by 6%.
+     * Works in cents, rounding half up; the price book clamps to min/max.
      */
-    private void adjustPrice(Product product, boolean highDemand, LocalDateTime now) {
-        final BigDecimal UP_PCT   = new BigDecimal("0.10"); // 10% up
-        final BigDecimal DOWN_PCT = new BigDecimal("0.06"); // 6% down
-
-        BigDecimal oldPrice = product.getPrice();
-        BigDecimal newPrice = highDemand
-                ? oldPrice.multiply(BigDecimal.ONE.add(UP_PCT))
-                : oldPrice.multiply(BigDecimal.ONE.subtract(DOWN_PCT));
-
-        // Clamp between min and max price
-        newPrice = newPrice.max(product.getMinPrice()).min(product.getMaxPrice());
-
-        if (oldPrice.compareTo(newPrice) == 0) return; // no change
-
-        product.setPrice(newPrice);
+    private PriceChange adjustPrice(PriceBook.Entry entry, boolean highDemand) {
+        long oldPrice = entry.priceCents();
+        long newPrice = highDemand
+                ? (oldPrice * (100 + UP_PCT) + 50) / 100
+                : (oldPrice * (100 - DOWN_PCT) + 50) / 100;
 
-        priceHistoryRepo.save(PriceHistory.builder()
-                .product(product)
-                .oldPrice(oldPrice)
-                .newPrice(newPrice)
-                .changedAt(now)
-                .reason(highDemand ? "Auto price bump from order" : "Auto price drop due to lower demand")
-                .build());
+        return entry.reprice(newPrice, highDemand ? PriceReason.ORDER_BUMP : PriceReason.ORDER_DROP, 0);
     }
 }
@@ -0,0 +1,74 @@
+package com.borsibaar.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt work (hashing, and logins that verify a hash) on a small pool of its own, so a burst
+ * of logins at shift change uses at most {@code security.bcrypt.threads} cores and never the
+ * request threads that serve orders.
+ * <p>
+ * At most {@code security.bcrypt.queue} jobs wait; beyond that callers are turned away at once
+ * with 503 instead of piling up.
+ */
+@Component
+public class PasswordHashing {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+
+    public PasswordHashing(PasswordEncoder passwordEncoder,
+                           MeterRegistry meterRegistry,
+                           @Value("${security.bcrypt.threads:0}") int threads,
+                           @Value("${security.bcrypt.queue:32}") int queue) {
+        this.passwordEncoder = passwordEncoder;
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), r -> {
+                    Thread t = new Thread(r, "bcrypt-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.rejected = meterRegistry.counter("auth.bcrypt.rejected");
+        Gauge.builder("auth.bcrypt.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("auth.bcrypt.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    /** Runs {@code work} on the BCrypt pool; throws 503 right away if the queue is full. */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins at once, try again shortly");
+        }
+    }
+
+    /** Hashes on the pool and waits for it; for the rare calls (signup, password change) that may block. */
+    public String encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword)).join();
+    }
+
+    @PreDestroy
+    void close() {
+        executor.shutdownNow();
+    }
+}
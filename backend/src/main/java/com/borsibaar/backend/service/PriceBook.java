@@ -0,0 +1,434 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PendingFlush;
+import com.borsibaar.backend.entity.PriceChange;
+import com.borsibaar.backend.entity.PriceReason;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory source of truth for the live price, sales count and last sale time of every product.
+ * <p>
+ * The order and decay paths mutate entries here; {@link PriceFlushService} writes the dirty ones
+ * back to {@code products}/{@code price_history} in batches.
+ * <p>
+ * An update made inside a transaction takes effect at once, so the next order is priced off it,
+ * but it stays provisional until the transaction ends: the entry is not flushed meanwhile,
+ * listeners only hear about it once it commits, and a rollback undoes it.
+ * <p>
+ * Sales and moves are stamped with the time the update took the entry's lock, so each product's
+ * history is in time order however its updates raced for it.
+ */
+@Component
+public class PriceBook {
+
+    private final ProductRepository productRepository;
+    private final Clock clock;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public PriceBook(ProductRepository productRepository) {
+        this(productRepository, Clock.systemDefaultZone());
+    }
+
+    PriceBook(ProductRepository productRepository, Clock clock) {
+        this.productRepository = productRepository;
+        this.clock = clock;
+    }
+
+    /** Listeners register themselves, so they may depend on services that use the book. */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /* ----------------------------- loading ----------------------------- */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Product p : productRepository.findAllWithCategory()) {
+            entries.putIfAbsent(p.getId(), new Entry(p));
+        }
+    }
+
+    /**
+     * Starts tracking a newly created product, or refreshes the catalog fields of a known one.
+     * A refreshed entry is flushed again so a manual price edit wins over an in-flight flush.
+     */
+    public void track(Product product) {
+        Entry entry = entries.putIfAbsent(product.getId(), new Entry(product));
+        if (entry != null) {
+            update(entry, e -> {
+                e.refresh(product);
+                e.edited = true;
+                e.dirty = true;
+                return null;
+            });
+        }
+    }
+
+    public void forget(Long productId) {
+        entries.remove(productId);
+        dirty.remove(productId);
+        listeners.forEach(l -> l.onForget(productId));
+    }
+
+    public Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    /** Entries grouped by owning bar, the unit the decay tick and flush work in. */
+    public Map<Integer, List<Entry>> entriesByOwner() {
+        return entries.values().stream()
+                .collect(Collectors.groupingBy(e -> e.ownerId() == null ? 0 : e.ownerId()));
+    }
+
+    /* ----------------------------- reading ----------------------------- */
+
+    public Quote quote(Product product) {
+        Entry entry = entryFor(product);
+        synchronized (entry) {
+            return entry.quote();
+        }
+    }
+
+    /** Live state of a tracked product, or {@code null}. */
+    public Quote quote(long productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) return null;
+        synchronized (entry) {
+            return entry.quote();
+        }
+    }
+
+    /**
+     * Like {@link #quote(long)}, but {@code null} while an update to the product is waiting on its
+     * transaction, for readers that must not show what may still be rolled back.
+     */
+    public Quote settledQuote(long productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null) return null;
+        synchronized (entry) {
+            return entry.open > 0 ? null : entry.quote();
+        }
+    }
+
+    /**
+     * The price deltas in cents of the product's moves not yet handed to a flush, newest first and
+     * at most {@code limit}; {@code price_history} has the ones before them.
+     */
+    public long[] unflushedDeltas(long productId, int limit) {
+        Entry entry = entries.get(productId);
+        if (entry == null) return new long[0];
+        synchronized (entry) {
+            List<PriceChange> history = entry.pendingHistory;
+            long[] out = new long[Math.min(limit, history.size())];
+            for (int i = 0; i < out.length; i++) {
+                PriceChange change = history.get(history.size() - 1 - i);
+                out[i] = change.newCents() - change.oldCents();
+            }
+            return out;
+        }
+    }
+
+    /** Copies the live price, sales count and last sale time onto a (read-only) product entity. */
+    public Product applyTo(Product product) {
+        Quote q = quote(product);
+        product.setPrice(q.price());
+        product.setSalesCount(q.salesCount());
+        product.setLastSaleAt(q.lastSaleAt());
+        return product;
+    }
+
+    /* ----------------------------- writing ----------------------------- */
+
+    public <T> T update(Product product, Function<Entry, T> change) {
+        return update(entryFor(product), change);
+    }
+
+    /**
+     * Runs {@code change} under the entry's lock and schedules the entry for the next flush.
+     * Listeners hear about sales and price moves afterwards, outside the lock; inside a transaction,
+     * only once it has committed.
+     */
+    public <T> T update(Entry entry, Function<Entry, T> change) {
+        T result;
+        boolean changed;
+        Update update;
+        LocalDateTime previousSaleAt;
+        boolean provisional;
+        synchronized (entry) {
+            previousSaleAt = entry.lastSaleAt;
+            entry.beginUpdate(LocalDateTime.now(clock));
+            result = change.apply(entry);
+            changed = entry.dirty;
+            update = entry.endUpdate();
+            provisional = update != null && TransactionSynchronizationManager.isSynchronizationActive();
+            if (provisional) entry.open++;
+        }
+        if (changed) {
+            dirty.add(entry.productId);
+        }
+        if (provisional) {
+            hold(entry, update, previousSaleAt);
+        } else if (update != null) {
+            notifyListeners(update);
+        }
+        return result;
+    }
+
+    // Runs after the synchronizations are cleared, so listeners deferring to a commit act at once
+    private void hold(Entry entry, Update update, LocalDateTime previousSaleAt) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (entry) {
+                    if (status != STATUS_COMMITTED) entry.revert(update, previousSaleAt);
+                    entry.open--;
+                }
+                if (status == STATUS_COMMITTED) notifyListeners(update);
+            }
+        });
+    }
+
+    private void notifyListeners(Update update) {
+        listeners.forEach(l -> l.onUpdate(update));
+    }
+
+    public Integer ownerOf(long productId) {
+        Entry entry = entries.get(productId);
+        return entry == null ? null : entry.ownerId;
+    }
+
+    /** Takes ownership of all pending changes. Hand them back with {@link #restore} if writing fails. */
+    public List<PendingFlush> drain() {
+        return drain(dirty);
+    }
+
+    /**
+     * Like {@link #drain()}, limited to the given products. Entries with an update still waiting
+     * on its transaction stay dirty for a later flush.
+     */
+    public List<PendingFlush> drain(Collection<Long> productIds) {
+        List<PendingFlush> out = new ArrayList<>();
+        List<Long> held = new ArrayList<>();
+        for (Long id : List.copyOf(productIds)) {
+            if (!dirty.remove(id)) continue;
+            Entry entry = entries.get(id);
+            if (entry == null) continue;
+            synchronized (entry) {
+                if (entry.open > 0) held.add(id);
+                else if (entry.dirty) out.add(entry.drain());
+            }
+        }
+        dirty.addAll(held);
+        return out;
+    }
+
+    public void restore(List<PendingFlush> pending) {
+        for (PendingFlush p : pending) {
+            Entry entry = entries.get(p.productId());
+            if (entry == null) continue;
+            synchronized (entry) {
+                entry.restore(p);
+            }
+            dirty.add(p.productId());
+        }
+    }
+
+    public int dirtyCount() {
+        return dirty.size();
+    }
+
+    private Entry entryFor(Product product) {
+        return entries.computeIfAbsent(product.getId(), id -> new Entry(product));
+    }
+
+    /* ------------------------------ types ------------------------------ */
+
+    /**
+     * Gets told about every sale and price move, in the order they were applied per product, or
+     * for updates made in a transaction, in the order those committed. Listeners only ever see
+     * committed updates: one made in a transaction is reported after it commits, and never if it
+     * rolls back, so a listener need not defer anything itself.
+     */
+    public interface Listener {
+        void onUpdate(Update update);
+
+        default void onForget(long productId) {
+        }
+    }
+
+    /**
+     * What one {@link #update} call did to a product.
+     *
+     * @param sold    units sold in this update (0 for a pure price move)
+     * @param changes price moves in this update, oldest first
+     */
+    public record Update(long productId, Integer ownerId, String categoryName, long priceCents, long salesCount,
+                         int sold, List<PriceChange> changes, LocalDateTime at) {
+    }
+
+    public record Quote(long priceCents, long salesCount, LocalDateTime lastSaleAt) {
+        public Money price() {
+            return Money.ofCents(priceCents);
+        }
+    }
+
+    /** Live state of one product. Only touch it through {@link PriceBook#update}. */
+    public static final class Entry {
+        private final long productId;
+        private final Integer ownerId;
+        private String categoryName;
+        private long priceCents;
+        private long minCents;
+        private long maxCents;
+        private long salesCount;
+        private LocalDateTime lastSaleAt;
+
+        private long pendingSales;
+        private List<PriceChange> pendingHistory = new ArrayList<>();
+        private boolean dirty;
+        private boolean edited; // a refresh or a failed flush must be written whatever a rollback undoes
+        private int open; // updates whose transaction has not ended yet
+
+        private LocalDateTime stampedAt; // time of the latest update, never moving backwards
+
+        // what the current update() call did, for the listeners
+        private int updateSold;
+        private List<PriceChange> updateChanges;
+        private LocalDateTime updateAt;
+
+        Entry(Product p) {
+            this.productId = p.getId();
+            this.ownerId = p.getOwner() != null ? p.getOwner().getId() : null;
+            this.salesCount = p.getSalesCount() == null ? 0L : p.getSalesCount();
+            this.lastSaleAt = p.getLastSaleAt();
+            refresh(p);
+        }
+
+        public long productId() { return productId; }
+        public Integer ownerId() { return ownerId; }
+        public String categoryName() { return categoryName; }
+        public long priceCents() { return priceCents; }
+        public long salesCount() { return salesCount; }
+        public LocalDateTime lastSaleAt() { return lastSaleAt; }
+        /** The time the current update's sales and moves are recorded at. */
+        public LocalDateTime now() { return stampedAt; }
+
+        /** Counts a sale; the price itself is moved separately through {@link #reprice}. */
+        public void sell(int quantity) {
+            salesCount += quantity;
+            pendingSales += quantity;
+            lastSaleAt = stampedAt;
+            dirty = true;
+            updateSold += quantity;
+            updateAt = stampedAt;
+        }
+
+        /**
+         * Moves the price to {@code newCents}, clamped to the product's min/max.
+         *
+         * @return the recorded change, or {@code null} if the clamped price did not move
+         */
+        public PriceChange reprice(long newCents, PriceReason kind, int detail) {
+            long clamped = Math.max(minCents, Math.min(maxCents, newCents));
+            if (clamped == priceCents) return null;
+
+            PriceChange change = new PriceChange(productId, ownerId, priceCents, clamped, stampedAt, kind, detail);
+            priceCents = clamped;
+            pendingHistory.add(change);
+            dirty = true;
+            if (updateChanges == null) updateChanges = new ArrayList<>(2);
+            updateChanges.add(change);
+            updateAt = stampedAt;
+            return change;
+        }
+
+        private void refresh(Product p) {
+            this.categoryName = p.getCategoryName();
+            this.minCents = p.getMinPrice().cents();
+            this.maxCents = p.getMaxPrice().cents();
+            this.priceCents = p.getPrice().cents();
+        }
+
+        // a clock stepped back by NTP must not reorder the product's history
+        private void beginUpdate(LocalDateTime now) {
+            if (stampedAt == null || now.isAfter(stampedAt)) stampedAt = now;
+            updateSold = 0;
+            updateChanges = null;
+            updateAt = null;
+        }
+
+        private Update endUpdate() {
+            if (updateSold == 0 && updateChanges == null) return null;
+            return new Update(productId, ownerId, categoryName, priceCents, salesCount, updateSold,
+                    updateChanges == null ? List.of() : updateChanges, updateAt);
+        }
+
+        /**
+         * Undoes a rolled-back update. Its price move is only taken back if nothing has moved the
+         * price since; a later move was priced off it and already stands on its own.
+         */
+        private void revert(Update update, LocalDateTime previousSaleAt) {
+            salesCount -= update.sold();
+            pendingSales -= update.sold();
+            if (update.sold() > 0 && Objects.equals(lastSaleAt, update.at())) {
+                lastSaleAt = previousSaleAt;
+            }
+            List<PriceChange> changes = update.changes();
+            if (!changes.isEmpty()) {
+                pendingHistory.removeIf(c -> changes.stream().anyMatch(undone -> undone == c));
+                if (priceCents == changes.getLast().newCents()) {
+                    priceCents = changes.getFirst().oldCents();
+                }
+            }
+            // every move leaves history, so with none left and no edit the price is the one last flushed
+            dirty = edited || pendingSales != 0 || !pendingHistory.isEmpty();
+        }
+
+        private Quote quote() {
+            return new Quote(priceCents, salesCount, lastSaleAt);
+        }
+
+        private PendingFlush drain() {
+            PendingFlush p = new PendingFlush(productId, ownerId, priceCents, pendingSales, lastSaleAt, pendingHistory);
+            pendingSales = 0;
+            pendingHistory = new ArrayList<>();
+            dirty = false;
+            edited = false;
+            return p;
+        }
+
+        private void restore(PendingFlush p) {
+            pendingSales += p.salesDelta();
+            List<PriceChange> merged = new ArrayList<>(p.history());
+            merged.addAll(pendingHistory);
+            pendingHistory = merged;
+            edited = true;
+            dirty = true;
+        }
+    }
+}
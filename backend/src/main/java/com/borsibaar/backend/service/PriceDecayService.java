@@ -1,81 +1,184 @@
 package com.borsibaar.backend.service;
 
-import com.borsibaar.backend.entity.PriceHistory;
-import com.borsibaar.backend.entity.Product;
-import com.borsibaar.backend.repository.PriceHistoryRepository;
-import com.borsibaar.backend.repository.ProductRepository;
-import jakarta.transaction.Transactional;
+import com.borsibaar.backend.configs.MetricsConfiguration;
+import com.borsibaar.backend.entity.PriceChange;
+import com.borsibaar.backend.entity.PriceReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Steps idle products' prices down once a minute.
+ * <p>
+ * Metrics: {@code pricing.decay.tick} times whole ticks, and {@code pricing.decay.last.tick.seconds}
+ * against {@code pricing.decay.period.seconds} shows how close the last one came to overlapping the
+ * next; overlapping ticks are counted in {@code pricing.decay.tick.skipped}. Per owner,
+ * {@code pricing.decay.chunk} times each chunk, {@code pricing.decay.products} counts products
+ * scanned and changed, and {@code pricing.decay.last.scanned}/{@code .changed} hold the last tick's.
+ */
 @Service
 public class PriceDecayService {
 
-    private final ProductRepository productRepo;
-    private final PriceHistoryRepository priceHistoryRepo;
+    private final PriceBook priceBook;
+    private final PriceFlushService priceFlushService;
+    private final MeterRegistry meterRegistry;
+    private final Logger log = LoggerFactory.getLogger(getClass());
 
-    private static final Map<String, BigDecimal> DECAY_STEP = Map.of(
-            "cocktails", new BigDecimal("0.05"),
-            "shots",     new BigDecimal("0.05")
+    // Decay step per tick, in cents
+    private static final Map<String, Long> DECAY_STEP = Map.of(
+            "cocktails", 5L,
+            "shots",     5L
     );
+    private static final long DEFAULT_STEP = 3L;
+
+    // One decay step per product and tick
+    private static final long TICK_MILLIS = 60_000L;
 
     // Don’t start decaying immediately after a sale
     private static final long GRACE_MINUTES = 2; // wait N minutes after last sale
 
-    public PriceDecayService(ProductRepository productRepo, PriceHistoryRepository priceHistoryRepo) {
-        this.productRepo = productRepo;
-        this.priceHistoryRepo = priceHistoryRepo;
+    @Value("${pricing.chunk-size:500}")
+    private int chunkSize;
+
+    private volatile LocalDateTime lastTickAt;
+
+    // On virtual threads fixed-rate ticks are not serialized by a single scheduler thread
+    private final ReentrantLock tickLock = new ReentrantLock();
+
+    private final Timer tickTimer;
+    private final Counter skippedTicks;
+    private final AtomicLong lastTickNanos = new AtomicLong();
+    private final Map<Integer, OwnerMeters> ownerMeters = new ConcurrentHashMap<>();
+
+    public PriceDecayService(PriceBook priceBook, PriceFlushService priceFlushService, MeterRegistry meterRegistry) {
+        this.priceBook = priceBook;
+        this.priceFlushService = priceFlushService;
+        this.meterRegistry = meterRegistry;
+        this.tickTimer = meterRegistry.timer("pricing.decay.tick");
+        this.skippedTicks = meterRegistry.counter("pricing.decay.tick.skipped");
+        Gauge.builder("pricing.decay.last.tick.seconds", lastTickNanos, n -> n.get() / 1e9)
+                .baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("pricing.decay.period.seconds", () -> TICK_MILLIS / 1000.0)
+                .baseUnit("seconds").register(meterRegistry);
     }
 
-    // Every minute
-    @Scheduled(fixedRate = 60_000L)
-    @Transactional
+    // Every minute, one owner-sized chunk at a time so no transaction spans the whole tick
+    @Scheduled(fixedRate = TICK_MILLIS)
     public void decayPrices() {
-        List<Product> products = productRepo.findAll();
+        if (!tickLock.tryLock()) {
+            skippedTicks.increment();
+            log.warn("Decay tick skipped, the previous one is still running");
+            return;
+        }
+        try {
+            decayTick();
+        } finally {
+            tickLock.unlock();
+        }
+    }
 
-        LocalDateTime now = LocalDateTime.now();
+    private void decayTick() {
+        lastTickAt = LocalDateTime.now();
+        long tickStart = System.nanoTime();
+        int scanned = 0, changed = 0;
+
+        for (Map.Entry<Integer, List<PriceBook.Entry>> owner : priceBook.entriesByOwner().entrySet()) {
+            List<PriceBook.Entry> entries = owner.getValue();
+            OwnerMeters meters = ownerMeters.computeIfAbsent(owner.getKey(), OwnerMeters::new);
+            int ownerChanged = 0;
+            for (int from = 0; from < entries.size(); from += chunkSize) {
+                List<PriceBook.Entry> chunk = entries.subList(from, Math.min(entries.size(), from + chunkSize));
+                long chunkStart = System.nanoTime();
+
+                List<Long> moved = new ArrayList<>();
+                for (PriceBook.Entry entry : chunk) {
+                    if (priceBook.update(entry, this::decay) != null) {
+                        moved.add(entry.productId());
+                    }
+                }
+                int rows = moved.isEmpty() ? 0 : priceFlushService.flush(moved);
+                long chunkNanos = System.nanoTime() - chunkStart;
+                meters.chunk.record(chunkNanos, TimeUnit.NANOSECONDS);
+
+                scanned += chunk.size();
+                changed += moved.size();
+                ownerChanged += moved.size();
+                if (!moved.isEmpty()) {
+                    log.info("Decay chunk owner={} scanned={} changed={} rows={} took {} ms",
+                            owner.getKey(), chunk.size(), moved.size(), rows,
+                            Duration.ofNanos(chunkNanos).toMillis());
+                }
+            }
+            meters.tick(entries.size(), ownerChanged);
+        }
 
-        for (Product p : products) {
-            String cat = (p.getCategoryName() == null) ? "" : p.getCategoryName().toLowerCase();
+        long tickNanos = System.nanoTime() - tickStart;
+        tickTimer.record(tickNanos, TimeUnit.NANOSECONDS);
+        lastTickNanos.set(tickNanos);
+        log.debug("Decay tick scanned={} changed={} took {} ms",
+                scanned, changed, Duration.ofNanos(tickNanos).toMillis());
+    }
 
-            BigDecimal step = DECAY_STEP.getOrDefault(cat, new BigDecimal("0.03"));
-            if (step.signum() <= 0) continue;
+    /** One owner's decay meters, registered the first time a tick sees the owner. */
+    private final class OwnerMeters {
+        final Timer chunk;
+        final Counter scanned;
+        final Counter changed;
+        final AtomicLong lastScanned = new AtomicLong();
+        final AtomicLong lastChanged = new AtomicLong();
+
+        OwnerMeters(Integer ownerId) {
+            String owner = MetricsConfiguration.ownerTag(ownerId);
+            chunk = meterRegistry.timer("pricing.decay.chunk", "owner", owner);
+            scanned = meterRegistry.counter("pricing.decay.products", "owner", owner, "result", "scanned");
+            changed = meterRegistry.counter("pricing.decay.products", "owner", owner, "result", "changed");
+            Gauge.builder("pricing.decay.last.scanned", lastScanned, AtomicLong::get).tag("owner", owner).register(meterRegistry);
+            Gauge.builder("pricing.decay.last.changed", lastChanged, AtomicLong::get).tag("owner", owner).register(meterRegistry);
+        }
 
-            // How long since last sale? (null => long time ago)
-            LocalDateTime last = p.getLastSaleAt();
-            long minutesSince = (last == null) ? 999_999L : Duration.between(last, now).toMinutes();
+        void tick(int scannedNow, int changedNow) {
+            scanned.increment(scannedNow);
+            changed.increment(changedNow);
+            lastScanned.set(scannedNow);
+            lastChanged.set(changedNow);
+        }
+    }
 
-            if (minutesSince <= GRACE_MINUTES) continue; // still in grace window
+    /** When the next tick is due, or {@code null} before the first one ran. */
+    public LocalDateTime nextTickAt() {
+        LocalDateTime last = lastTickAt;
+        return last == null ? null : last.plusNanos(TICK_MILLIS * 1_000_000L);
+    }
 
-            // Apply ONE step per scheduler tick (1 minute)
-            BigDecimal oldPrice = p.getPrice();
-            BigDecimal newPrice = oldPrice.subtract(step);
+    private PriceChange decay(PriceBook.Entry p) {
+        String cat = (p.categoryName() == null) ? "" : p.categoryName().toLowerCase();
 
-            // Clamp to minPrice
-            if (newPrice.compareTo(p.getMinPrice()) < 0) {
-                newPrice = p.getMinPrice();
-            }
+        long step = DECAY_STEP.getOrDefault(cat, DEFAULT_STEP);
+        if (step <= 0) return null;
 
-            // Only write if changed
-            if (newPrice.compareTo(oldPrice) != 0) {
-                p.setPrice(newPrice);
+        // How long since last sale? (null => long time ago)
+        LocalDateTime last = p.lastSaleAt();
+        long minutesSince = (last == null) ? 999_999L : Duration.between(last, p.now()).toMinutes();
 
-                priceHistoryRepo.save(PriceHistory.builder()
-                        .product(p)
-                        .oldPrice(oldPrice)
-                        .newPrice(newPrice)
-                        .changedAt(now)
-                        .reason("Auto decay (no sales for " + minutesSince + " min)")
-                        .build());
+        if (minutesSince <= GRACE_MINUTES) return null; // still in grace window
 
-                productRepo.save(p);
-            }
-        }
+        // Apply ONE step per scheduler tick (1 minute), clamped to minPrice by the book
+        return p.reprice(p.priceCents() - step, PriceReason.DECAY, (int) Math.min(minutesSince, Integer.MAX_VALUE));
     }
 }
@@ -0,0 +1,240 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.PriceUpdateDto;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes live price moves to every screen of a bar over Server-Sent Events.
+ * <p>
+ * Updates from the {@link PriceBook} only mark products as changed; every
+ * {@code pricing.feed.coalesce-ms} the marked products are read back from the book, grouped per
+ * owner and serialized once into a single {@code prices} event shared by all of that owner's
+ * subscribers. Only committed state goes out: the book reports an update once it commits, and a
+ * product with a transaction still in flight waits for a later run. Each subscriber has a bounded
+ * queue drained by a small sender pool; a subscriber whose queue overflows is disconnected rather
+ * than slowing anyone else down, and is expected to reconnect and start over from a fresh snapshot.
+ */
+@Component
+public class PriceFeed implements PriceBook.Listener {
+
+    // Marks "sales only" in the pending map, which cannot hold nulls
+    private static final long NO_PRICE_CHANGE = Long.MIN_VALUE;
+
+    private final PriceBook priceBook;
+    private final BoardSnapshots boardSnapshots;
+    private final ObjectMapper objectMapper;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    // product id -> delta in cents of its latest price move in this window
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+
+    @Value("${pricing.feed.buffer-events:64}")
+    private int bufferEvents;
+
+    @Value("${pricing.feed.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public PriceFeed(PriceBook priceBook,
+                     BoardSnapshots boardSnapshots,
+                     ObjectMapper objectMapper,
+                     @Value("${pricing.feed.sender-threads:4}") int senderThreads,
+                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.priceBook = priceBook;
+        this.boardSnapshots = boardSnapshots;
+        this.objectMapper = objectMapper;
+        priceBook.addListener(this);
+        // Senders mostly wait on slow sockets, so they follow the app onto virtual threads
+        this.senders = Executors.newFixedThreadPool(senderThreads, virtualThreads
+                ? Thread.ofVirtual().name("price-feed-sender-", 1).factory()
+                : Thread.ofPlatform().name("price-feed-sender-", 1).daemon().factory());
+    }
+
+    /* --------------------------- subscribing --------------------------- */
+
+    /** Opens a stream for the owner's screens, starting with a snapshot of the whole board. */
+    public SseEmitter subscribe(User owner) {
+        return subscribe(owner, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(User owner, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(owner.getId(), emitter, bufferEvents);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            remove(subscriber);
+            emitter.complete(); // ends the stream normally; the client reconnects
+        });
+        emitter.onError(e -> remove(subscriber));
+
+        // register first so no move between snapshot and registration is lost; a duplicate is harmless
+        subscribers.computeIfAbsent(owner.getId(), id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriber.offer(new Event("snapshot", new String(boardSnapshots.get(owner).json(), StandardCharsets.UTF_8)));
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> owned = subscribers.get(subscriber.ownerId);
+        if (owned != null) owned.remove(subscriber);
+    }
+
+    /* ---------------------------- publishing --------------------------- */
+
+    @Override
+    public void onUpdate(PriceBook.Update update) {
+        if (update.ownerId() == null || !subscribers.containsKey(update.ownerId())) return;
+        long delta = update.changes().isEmpty()
+                ? NO_PRICE_CHANGE
+                : update.changes().getLast().newCents() - update.changes().getLast().oldCents();
+        // a sale after a move in the same window keeps the move
+        pending.merge(update.productId(), delta, (old, now) -> now == NO_PRICE_CHANGE ? old : now);
+    }
+
+    /** Sends one coalesced event per owner with everything that moved since the last run. */
+    @Scheduled(fixedDelayString = "${pricing.feed.coalesce-ms:250}")
+    public void publish() {
+        if (pending.isEmpty()) return;
+
+        Map<Integer, List<PriceUpdateDto>> byOwner = new HashMap<>();
+        for (Long productId : List.copyOf(pending.keySet())) {
+            Long delta = pending.remove(productId);
+            Integer ownerId = priceBook.ownerOf(productId);
+            if (delta == null || ownerId == null || priceBook.quote(productId) == null) continue;
+            PriceBook.Quote quote = priceBook.settledQuote(productId);
+            if (quote == null) {
+                // an order on it is still open; it goes out next time, behind anything newer
+                pending.merge(productId, delta, (newer, held) -> newer == NO_PRICE_CHANGE ? held : newer);
+                continue;
+            }
+
+            PriceUpdateDto.PriceUpdateDtoBuilder dto = PriceUpdateDto.builder()
+                    .id(productId)
+                    .price(quote.price())
+                    .salesCount(quote.salesCount())
+                    .lastSaleAt(quote.lastSaleAt());
+            if (delta != NO_PRICE_CHANGE) {
+                dto.priceChange(Money.ofCents(delta)).priceUp(delta > 0);
+            }
+            byOwner.computeIfAbsent(ownerId, id -> new ArrayList<>()).add(dto.build());
+        }
+
+        byOwner.forEach((ownerId, updates) -> {
+            Set<Subscriber> owned = subscribers.get(ownerId);
+            if (owned == null || owned.isEmpty()) return;
+            Event event = new Event("prices", serialize(updates)); // once, whatever the audience
+            owned.forEach(s -> s.offer(event));
+        });
+    }
+
+    /** Keeps idle connections open through proxies and notices screens that went away. */
+    @Scheduled(fixedDelayString = "${pricing.feed.heartbeat-ms:20000}")
+    public void heartbeat() {
+        subscribers.values().forEach(owned -> owned.forEach(s -> s.offer(Event.HEARTBEAT)));
+    }
+
+    @PreDestroy
+    void close() {
+        subscribers.values().forEach(owned -> owned.forEach(s -> s.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    private String serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize price feed event", e);
+        }
+    }
+
+    /* ------------------------------ types ------------------------------ */
+
+    /** A pre-serialized event; {@code name == null} is an SSE comment. */
+    private record Event(String name, String json) {
+        static final Event HEARTBEAT = new Event(null, null);
+    }
+
+    private final class Subscriber {
+        final Integer ownerId;
+        final SseEmitter emitter;
+        final BlockingQueue<Event> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(Integer ownerId, SseEmitter emitter, int capacity) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(Event event) {
+            if (closed) return;
+            if (!queue.offer(event)) {
+                log.info("Dropping slow price feed subscriber of owner {}", ownerId);
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // At most one drain per subscriber runs at a time, so its events stay in order
+        private void drain() {
+            try {
+                Event event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event.name() == null
+                            ? SseEmitter.event().comment("")
+                            : SseEmitter.event().name(event.name()).data(event.json(), MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(); // client gone
+            } finally {
+                draining.set(false);
+                if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                    senders.execute(this::drain);
+                }
+            }
+        }
+
+        private void close() {
+            closed = true;
+            queue.clear();
+            remove(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // already completed
+            }
+        }
+    }
+}
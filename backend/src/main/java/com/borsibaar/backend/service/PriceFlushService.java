@@ -0,0 +1,96 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.PendingFlush;
+import com.borsibaar.backend.repository.PriceBookRepository;
+import com.borsibaar.backend.repository.PriceTickStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind persistence for the {@link PriceBook}, one short transaction per owner chunk.
+ * Products whose moves were written are marked changed in {@link BoardVersions} once more: their
+ * recent deltas were read from the book until the drain and from {@code price_history} after the
+ * write, and a board read in between may have missed them.
+ */
+@Service
+public class PriceFlushService {
+
+    private final PriceBook priceBook;
+    private final PriceBookRepository priceBookRepo;
+    private final PriceTickStore tickStore;
+    private final BoardVersions boardVersions;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Value("${pricing.chunk-size:500}")
+    private int chunkSize;
+
+    public PriceFlushService(PriceBook priceBook, PriceBookRepository priceBookRepo, PriceTickStore tickStore,
+                             BoardVersions boardVersions) {
+        this.priceBook = priceBook;
+        this.priceBookRepo = priceBookRepo;
+        this.tickStore = tickStore;
+        this.boardVersions = boardVersions;
+    }
+
+    @Scheduled(fixedDelayString = "${pricing.flush-interval-ms:2000}")
+    public synchronized void flush() {
+        write(priceBook.drain());
+    }
+
+    /** Flushes just the given products, e.g. the chunk a decay tick has just moved. */
+    public synchronized int flush(Collection<Long> productIds) {
+        return write(priceBook.drain(productIds));
+    }
+
+    // Callers hold the monitor, so ticks reach the store in the order they were drained
+    private int write(List<PendingFlush> pending) {
+        if (pending.isEmpty()) return 0;
+
+        Map<Integer, List<PendingFlush>> byOwner = pending.stream()
+                .collect(Collectors.groupingBy(p -> p.ownerId() == null ? 0 : p.ownerId()));
+
+        int rows = 0;
+        for (List<PendingFlush> owned : byOwner.values()) {
+            for (int from = 0; from < owned.size(); from += chunkSize) {
+                List<PendingFlush> chunk = owned.subList(from, Math.min(owned.size(), from + chunkSize));
+                try {
+                    rows += priceBookRepo.write(chunk);
+                } catch (RuntimeException e) {
+                    // Nothing was written: hand the changes back so the next tick (or shutdown) retries them
+                    priceBook.restore(chunk);
+                    log.warn("Price flush of {} products failed, will retry: {}", chunk.size(), e.getMessage());
+                    continue;
+                }
+                // Committed from here on, so a retry would count the sales twice
+                try {
+                    tickStore.append(chunk.stream().flatMap(p -> p.history().stream()).toList());
+                } catch (RuntimeException e) {
+                    tickStore.invalidate();
+                    log.error("Could not append {} products' ticks; the tick store is rebuilt from price_history on the next start",
+                            chunk.size(), e);
+                }
+                chunk.stream()
+                        .filter(p -> !p.history().isEmpty())
+                        .forEach(p -> boardVersions.changed(p.ownerId(), p.productId()));
+            }
+        }
+        return rows;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+        if (priceBook.dirtyCount() > 0) {
+            log.error("Shutting down with {} unflushed price book entries", priceBook.dirtyCount());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.PriceHistoryDto;
+import com.borsibaar.backend.dtos.PriceHistoryPageDto;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PriceHistory;
+import com.borsibaar.backend.repository.PriceHistoryRepository;
+import com.borsibaar.backend.repository.PriceTickStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keyset-paginated price history. Reads come from the {@link PriceTickStore} when it has the
+ * product, otherwise from {@code price_history} on {@code (changed_at, id)}.
+ * <p>
+ * Cursors are opaque to clients: {@code t<index>} for a tick index, {@code d<changedAt>,<id>} for a
+ * history row, see {@link Cursors}.
+ */
+@Service
+public class PriceHistoryService {
+
+    // Open bounds for the database path; both fit a Postgres timestamp
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final PriceHistoryRepository repo;
+    private final PriceTickStore tickStore;
+    private final PriceBook priceBook;
+
+    @Value("${pricing.history.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${pricing.history.max-page-size:500}")
+    private int maxPageSize;
+
+    public PriceHistoryService(PriceHistoryRepository repo, PriceTickStore tickStore, PriceBook priceBook) {
+        this.repo = repo;
+        this.tickStore = tickStore;
+        this.priceBook = priceBook;
+    }
+
+    @Transactional(readOnly = true)
+    public PriceHistoryPageDto page(Long productId, Integer ownerId, LocalDateTime from, LocalDateTime to,
+                                    String cursor, Integer limit) {
+        if (ownerId == null || !ownerId.equals(priceBook.ownerOf(productId))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+        int size = limit == null ? defaultPageSize : limit;
+        if (size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + maxPageSize);
+        }
+
+        String decoded = Cursors.decode(cursor);
+        if (decoded != null && !decoded.startsWith("t") && !decoded.startsWith("d")) throw Cursors.invalid();
+        // a product that reaches the tick store mid-way keeps paging the table with its database cursor
+        if (tickStore.contains(productId) && (decoded == null || decoded.startsWith("t"))) {
+            return fromTicks(productId, from, to, decoded == null ? -1 : parseTickCursor(decoded), size);
+        }
+        return fromTable(productId, from, to, decoded, size);
+    }
+
+    private PriceHistoryPageDto fromTicks(long productId, LocalDateTime from, LocalDateTime to, int after, int size) {
+        List<PriceHistoryDto> items = new ArrayList<>(Math.min(size + 1, 64));
+        // one extra tick tells us whether there is a next page
+        int last = tickStore.read(productId, from, to, after, size + 1,
+                (id, changedAt, oldCents, newCents, reason, detail) -> items.add(PriceHistoryDto.builder()
+                        .changedAt(changedAt)
+                        .oldPrice(Money.ofCents(oldCents))
+                        .newPrice(Money.ofCents(newCents))
+                        .change(Money.ofCents(newCents - oldCents))
+                        .reason(reason.describe(detail))
+                        .build()));
+
+        String next = null;
+        if (items.size() > size) {
+            items.remove(size);
+            next = Cursors.encode("t" + (last - 1));
+        }
+        return PriceHistoryPageDto.builder().items(items).nextCursor(next).build();
+    }
+
+    private PriceHistoryPageDto fromTable(Long productId, LocalDateTime from, LocalDateTime to,
+                                          String cursor, int size) {
+        LocalDateTime afterAt = MIN_TIME;
+        long afterId = 0L;
+        if (cursor != null && cursor.startsWith("d")) {
+            String[] parts = cursor.substring(1).split(",", 2);
+            try {
+                afterAt = LocalDateTime.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw Cursors.invalid();
+            }
+        }
+
+        List<PriceHistoryDto> items = new ArrayList<>(Math.min(size + 1, 64));
+        PriceHistory lastKept = null;
+        try (Stream<PriceHistory> rows = repo.streamPage(productId,
+                from == null ? MIN_TIME : from, to == null ? MAX_TIME : to,
+                afterAt, afterId, Limit.of(size + 1))) {
+            for (PriceHistory h : (Iterable<PriceHistory>) rows::iterator) {
+                if (items.size() == size) {
+                    return PriceHistoryPageDto.builder()
+                            .items(items)
+                            .nextCursor(Cursors.encode("d" + lastKept.getChangedAt() + "," + lastKept.getId()))
+                            .build();
+                }
+                items.add(PriceHistoryDto.builder()
+                        .changedAt(h.getChangedAt())
+                        .oldPrice(h.getOldPrice())
+                        .newPrice(h.getNewPrice())
+                        .change(h.getNewPrice().minus(h.getOldPrice()))
+                        .reason(h.getReason())
+                        .build());
+                lastKept = h;
+            }
+        }
+        return PriceHistoryPageDto.builder().items(items).build();
+    }
+
+    private static int parseTickCursor(String cursor) {
+        try {
+            return Integer.parseInt(cursor.substring(1));
+        } catch (NumberFormatException e) {
+            throw Cursors.invalid();
+        }
+    }
+
+}
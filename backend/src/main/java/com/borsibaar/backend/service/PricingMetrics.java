@@ -0,0 +1,44 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.configs.MetricsConfiguration;
+import com.borsibaar.backend.entity.PriceChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts every price move in the {@link PriceBook} as {@code prices.moves}, tagged by owner,
+ * category, reason ({@code order_bump}, {@code order_drop}, {@code decay}) and direction.
+ */
+@Component
+public class PricingMetrics implements PriceBook.Listener {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<MoveKey, Counter> moves = new ConcurrentHashMap<>();
+
+    private record MoveKey(Integer ownerId, String category, String reason, boolean up) {
+    }
+
+    public PricingMetrics(PriceBook priceBook, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        priceBook.addListener(this);
+    }
+
+    @Override
+    public void onUpdate(PriceBook.Update update) {
+        String category = update.categoryName() == null ? "none" : update.categoryName().toLowerCase(Locale.ROOT);
+        for (PriceChange change : update.changes()) {
+            MoveKey key = new MoveKey(update.ownerId(), category, change.kind().name().toLowerCase(Locale.ROOT), change.isUp());
+            moves.computeIfAbsent(key, k -> Counter.builder("prices.moves")
+                    .tag("owner", MetricsConfiguration.ownerTag(k.ownerId()))
+                    .tag("category", k.category())
+                    .tag("reason", k.reason())
+                    .tag("direction", k.up() ? "up" : "down")
+                    .register(meterRegistry)).increment();
+        }
+    }
+}
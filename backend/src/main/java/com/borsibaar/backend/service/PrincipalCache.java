@@ -0,0 +1,96 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Principals loaded by the JWT filter, keyed by token subject and issue time, so steady traffic
+ * from a logged-in screen does not look the user up on every request.
+ * <p>
+ * Entries live for {@code security.principal-cache.ttl-ms} and at most
+ * {@code security.principal-cache.max-size} are kept, oldest first out. {@link UserService} calls
+ * {@link #invalidate} after changing or deleting a user; a load that raced with an invalidation is
+ * returned but not cached.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Key(String subject, long issuedAt) {
+    }
+
+    private record Entry(UserDetails user, long expiresAt) {
+    }
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${security.principal-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    public PrincipalCache(MeterRegistry meterRegistry) {
+        this.hits = meterRegistry.counter("security.principal.cache", "result", "hit");
+        this.misses = meterRegistry.counter("security.principal.cache", "result", "miss");
+        Gauge.builder("security.principal.cache.size", this, PrincipalCache::size).register(meterRegistry);
+        Gauge.builder("security.principal.cache.hit.ratio", this, PrincipalCache::hitRatio).register(meterRegistry);
+    }
+
+    /** The cached principal for this token, or whatever {@code loader} returns (cached if it returns). */
+    public UserDetails get(String subject, long issuedAt, Supplier<UserDetails> loader) {
+        Key key = new Key(subject, issuedAt);
+        long now = System.currentTimeMillis();
+        long seenGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                return entry.user;
+            }
+            if (entry != null) entries.remove(key);
+            seenGeneration = generation;
+        }
+
+        misses.increment();
+        UserDetails user = loader.get(); // outside the lock; a concurrent miss may load twice
+        synchronized (this) {
+            if (generation == seenGeneration) {
+                entries.put(key, new Entry(user, now + ttlMs));
+            }
+        }
+        return user;
+    }
+
+    /** Drops every cached principal of the user, whatever email its tokens were issued for. */
+    public synchronized void invalidate(Integer userId) {
+        generation++;
+        entries.values().removeIf(e -> e.user instanceof User u && userId.equals(u.getId()));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private double hitRatio() {
+        double h = hits.count(), total = h + misses.count();
+        return total == 0 ? 0 : h / total;
+    }
+}
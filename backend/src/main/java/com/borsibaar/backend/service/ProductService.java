@@ -1,21 +1,29 @@
 package com.borsibaar.backend.service;
 
+import com.borsibaar.backend.configs.MetricsConfiguration;
 import com.borsibaar.backend.dtos.CreateProductDto;
 import com.borsibaar.backend.dtos.ProductDTO;
 import com.borsibaar.backend.dtos.UpdateProductDto;
 import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
 import com.borsibaar.backend.entity.Product;
 import com.borsibaar.backend.exceptions.ProductNotFoundException;
 import com.borsibaar.backend.repository.CategoryRepository;
 import com.borsibaar.backend.repository.PriceHistoryRepository;
 import com.borsibaar.backend.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class ProductService {
@@ -23,46 +31,76 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceBook priceBook;
+    private final BoardVersions boardVersions;
+    private final MeterRegistry meterRegistry;
+
+    // Deltas feeding the predicted price
+    private static final int PREDICTION_WINDOW = 8;
+
+    // EMA weight of the newer delta, in percent, and the fixed-point scale it runs at (1/10000 cent)
+    private static final long EMA_ALPHA_PCT = 55;
+    private static final long EMA_SCALE = 10_000;
+
+    private static final Money MIN_PRICE = Money.ofCents(400);
+    private static final Money MAX_PRICE = Money.ofCents(900);
 
     public ProductService(ProductRepository productRepository,
                           CategoryRepository categoryRepository,
-                          PriceHistoryRepository priceHistoryRepository) {
+                          PriceHistoryRepository priceHistoryRepository,
+                          PriceBook priceBook,
+                          BoardVersions boardVersions,
+                          MeterRegistry meterRegistry) {
         this.categoryRepository = categoryRepository;
         this.priceHistoryRepository = priceHistoryRepository;
         this.productRepository = productRepository;
+        this.priceBook = priceBook;
+        this.boardVersions = boardVersions;
+        this.meterRegistry = meterRegistry;
     }
 
     /* -------------------------- helpers -------------------------- */
 
-    private BigDecimal clampPrice(BigDecimal price, BigDecimal min, BigDecimal max) {
-        if (price.compareTo(min) < 0) return min;
-        if (price.compareTo(max) > 0) return max;
-        return price;
-    }
-
     private boolean isCocktailOrShot(String name) {
         return name != null &&
                 (name.equalsIgnoreCase("cocktails") || name.equalsIgnoreCase("shots"));
     }
 
-    /** Exponential moving average of deltas (0 < alpha <= 1) */
-    private BigDecimal ema(List<BigDecimal> values, BigDecimal alpha) {
-        if (values == null || values.isEmpty()) return BigDecimal.ZERO;
-        BigDecimal ema = values.get(0);
-        for (int i = 1; i < values.size(); i++) {
-            ema = values.get(i).multiply(alpha)
-                    .add(ema.multiply(BigDecimal.ONE.subtract(alpha)));
+    /** Exponential moving average of the deltas, oldest to newest, rounded to the cent. */
+    private static long emaCents(RecentDeltas deltas) {
+        long ema = deltas.cents[deltas.size - 1] * EMA_SCALE;
+        for (int i = deltas.size - 2; i >= 0; i--) {
+            ema = Money.roundDiv(EMA_ALPHA_PCT * deltas.cents[i] * EMA_SCALE + (100 - EMA_ALPHA_PCT) * ema, 100);
+        }
+        return Money.roundDiv(ema, EMA_SCALE);
+    }
+
+    /** A product's latest price deltas in cents, newest first. */
+    private static final class RecentDeltas {
+        static final RecentDeltas NONE = new RecentDeltas();
+
+        final long[] cents = new long[PREDICTION_WINDOW];
+        int size;
+
+        void add(long delta) {
+            if (size < cents.length) cents[size++] = delta;
+        }
+
+        /** {@code newer} (newest first) followed by {@code older}, cut to the window. */
+        static RecentDeltas merge(long[] newer, RecentDeltas older) {
+            if (newer.length == 0) return older;
+            RecentDeltas merged = new RecentDeltas();
+            for (long delta : newer) merged.add(delta);
+            for (int i = 0; i < older.size; i++) merged.add(older.cents[i]);
+            return merged;
         }
-        return ema;
     }
 
     /* --------------------------- queries -------------------------- */
 
     public List<ProductDTO> findForUser(com.borsibaar.backend.entity.User user) {
-        return productRepository.findByOwner_Id(user.getId())
-                .stream()
-                .map(this::buildDto)
-                .toList();
+        List<Product> products = productRepository.findAllWithCategoryByOwnerId(user.getId());
+        return List.copyOf(buildDtos(products).values());
     }
 
     /* --------------------------- commands ------------------------- */
@@ -79,16 +117,12 @@ public class ProductService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Cannot create product in another user's category");
         }
 
-        BigDecimal minPrice = BigDecimal.valueOf(4.00);
-        BigDecimal maxPrice = BigDecimal.valueOf(9.00);
-        BigDecimal clampedPrice = clampPrice(dto.getPrice(), minPrice, maxPrice);
-
         Product product = Product.builder()
                 .name(dto.getName())
                 .description(dto.getDescription())
-                .price(clampedPrice)
-                .minPrice(minPrice)
-                .maxPrice(maxPrice)
+                .price(dto.getPrice().clamp(MIN_PRICE, MAX_PRICE))
+                .minPrice(MIN_PRICE)
+                .maxPrice(MAX_PRICE)
                 .salesCount(0L)
                 .lastSaleAt(null)
                 .category(category)
@@ -96,6 +130,8 @@ public class ProductService {
                 .build();
 
         Product saved = productRepository.save(product);
+        priceBook.track(saved);
+        boardVersions.changed(principal.getId(), saved.getId());
         return buildDto(saved);
     }
 
@@ -123,10 +159,12 @@ public class ProductService {
 
         existing.setName(dto.getName());
         existing.setDescription(dto.getDescription());
-        existing.setPrice(clampPrice(dto.getPrice(), existing.getMinPrice(), existing.getMaxPrice()));
+        existing.setPrice(dto.getPrice().clamp(existing.getMinPrice(), existing.getMaxPrice()));
         existing.setCategory(category);
 
         Product updated = productRepository.save(existing);
+        priceBook.track(updated);
+        boardVersions.changed(principal.getId(), updated.getId());
         return buildDto(updated);
     }
 
@@ -140,53 +178,87 @@ public class ProductService {
         }
 
         productRepository.delete(p);
+        priceBook.forget(id);
+        boardVersions.removed(principal.getId(), id);
     }
 
     /* --------------------------- DTO builder ---------------------- */
 
     /** Exposed so controllers/services can reuse it. */
     public ProductDTO buildDto(Product product) {
+        return buildDtos(List.of(product)).get(product.getId());
+    }
+
+    /**
+     * Builds DTOs for many products with a single history query, keyed by product id.
+     * Callers that render boards or order lists should collect their products and come here once.
+     * Timed as {@code products.dto.build} by owner ({@code mixed} if the products span several).
+     */
+    public Map<Long, ProductDTO> buildDtos(Collection<Product> products) {
+        Map<Long, ProductDTO> out = new LinkedHashMap<>();
+        if (products.isEmpty()) return out;
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<Long, RecentDeltas> deltas = new HashMap<>();
+        List<Long> ids = products.stream().map(Product::getId).distinct().toList();
+        for (var change : priceHistoryRepository.findRecentChanges(ids, PREDICTION_WINDOW)) {
+            deltas.computeIfAbsent(change.getProductId(), id -> new RecentDeltas()).add(change.getDeltaCents());
+        }
+
+        Integer owner = ownerId(products.iterator().next());
+        boolean mixed = false;
+        for (Product product : products) {
+            // moves still waiting for the flush are newer than anything in price_history
+            out.computeIfAbsent(product.getId(), id -> buildDto(product, RecentDeltas.merge(
+                    priceBook.unflushedDeltas(id, PREDICTION_WINDOW), deltas.getOrDefault(id, RecentDeltas.NONE))));
+            mixed |= !Objects.equals(owner, ownerId(product));
+        }
+
+        sample.stop(meterRegistry.timer("products.dto.build",
+                "owner", mixed ? "mixed" : MetricsConfiguration.ownerTag(owner)));
+        return out;
+    }
+
+    private static Integer ownerId(Product product) {
+        return product.getOwner() == null ? null : product.getOwner().getId();
+    }
+
+    /** @param recent the product's latest deltas, newest first (at most {@link #PREDICTION_WINDOW}) */
+    private ProductDTO buildDto(Product product, RecentDeltas recent) {
+        // live price state comes from the price book, the row may lag behind
+        PriceBook.Quote quote = priceBook.quote(product);
+        Money price = quote.price();
+
         ProductDTO.ProductDTOBuilder builder = ProductDTO.builder()
                 .id(product.getId())
                 .name(product.getName())
                 .description(product.getDescription())
-                .price(product.getPrice())
-                .salesCount(product.getSalesCount())
+                .price(price)
+                .salesCount(quote.salesCount())
                 .categoryId(product.getCategoryId())
                 .categoryName(product.getCategoryName())
-                .lastSaleAt(product.getLastSaleAt());
+                .lastSaleAt(quote.lastSaleAt());
 
         // last change (nullable)
-        priceHistoryRepository.findTopByProductIdOrderByChangedAtDesc(product.getId())
-                .ifPresent(hist -> {
-                    BigDecimal change = hist.getNewPrice().subtract(hist.getOldPrice());
-                    builder.priceChange(change);
-                    builder.priceUp(change.compareTo(BigDecimal.ZERO) > 0);
-                });
+        if (recent.size > 0) {
+            long change = recent.cents[0];
+            builder.priceChange(Money.ofCents(change));
+            builder.priceUp(change > 0);
+        }
 
         // --- Prediction ---
         // Try EMA of recent deltas; if none, apply category bias.
-        var history = priceHistoryRepository.findByProductIdOrderByChangedAtAsc(product.getId());
-        BigDecimal predicted = product.getPrice();
-        if (!history.isEmpty()) {
-            // Use up to the last 8 deltas for a snappier feel
-            int from = Math.max(0, history.size() - 8);
-            var recent = history.subList(from, history.size());
-            var deltas = recent.stream()
-                    .map(h -> h.getNewPrice().subtract(h.getOldPrice()))
-                    .toList();
-            BigDecimal alpha = new BigDecimal("0.55"); // responsive EMA
-            BigDecimal drift = ema(deltas, alpha);
-            predicted = product.getPrice().add(drift);
+        Money predicted;
+        if (recent.size > 0) {
+            // EMA runs oldest to newest over the last few deltas for a snappier feel
+            predicted = Money.ofCents(price.cents() + emaCents(recent));
         } else {
-            // Cold-start bias
+            // Cold-start bias: +7% for cocktails and shots, -3% otherwise
             boolean hot = isCocktailOrShot(product.getCategoryName());
-            BigDecimal pct = hot ? new BigDecimal("0.07") : new BigDecimal("-0.03");
-            predicted = product.getPrice().multiply(BigDecimal.ONE.add(pct));
+            predicted = price.times(hot ? 107 : 97, 100);
         }
 
-        predicted = clampPrice(predicted, product.getMinPrice(), product.getMaxPrice());
-        builder.predictedPrice(predicted);
+        builder.predictedPrice(predicted.clamp(product.getMinPrice(), product.getMaxPrice()));
 
         return builder.build();
     }
@@ -0,0 +1,170 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.ProductRevenueDto;
+import com.borsibaar.backend.dtos.RevenueDto;
+import com.borsibaar.backend.dtos.RevenueHourDto;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.Order;
+import com.borsibaar.backend.entity.OrderItem;
+import com.borsibaar.backend.repository.RevenueRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the hourly revenue rollups in step with orders and answers dashboard queries from them.
+ * The record/remove/replace methods must run inside the order's transaction.
+ */
+@Service
+public class RevenueService {
+
+    // Open bounds for the date range; both fit a Postgres timestamp
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final RevenueRepository revenueRepo;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Value("${revenue.backfill-on-start:true}")
+    private boolean backfillOnStart;
+
+    // The EntityManagerFactory dependency makes sure the rollup tables exist before the backfill
+    public RevenueService(RevenueRepository revenueRepo, EntityManagerFactory emf) {
+        this.revenueRepo = revenueRepo;
+    }
+
+    /** Builds the rollups from existing orders the first time the tables are found empty. */
+    @PostConstruct
+    void backfillIfEmpty() {
+        if (!backfillOnStart || !revenueRepo.isEmpty()) return;
+        long start = System.currentTimeMillis();
+        int hours = revenueRepo.backfill();
+        if (hours > 0) {
+            log.info("Backfilled revenue rollups: {} owner hours in {} ms", hours, System.currentTimeMillis() - start);
+        }
+    }
+
+    /* ----------------------------- writing ----------------------------- */
+
+    public void recordOrder(Order order) {
+        Map<Long, RevenueRepository.Line> lines = new LinkedHashMap<>();
+        addLines(lines, order.getItems(), order.getTotal(), 1);
+        write(order, lines, 1, order.getTotal());
+    }
+
+    /** Records many orders at once, one upsert per owner hour they fall in rather than per order. */
+    public void recordOrders(List<Order> orders) {
+        Map<OwnerHour, List<Order>> byHour = orders.stream().collect(Collectors.groupingBy(
+                o -> new OwnerHour(o.getUser().getId(), o.getCreatedAt().truncatedTo(ChronoUnit.HOURS)),
+                LinkedHashMap::new, Collectors.toList()));
+
+        byHour.values().forEach(inHour -> {
+            Map<Long, RevenueRepository.Line> lines = new LinkedHashMap<>();
+            Money total = Money.ZERO;
+            for (Order order : inHour) {
+                addLines(lines, order.getItems(), order.getTotal(), 1);
+                total = total.plus(order.getTotal());
+            }
+            write(inHour.get(0), lines, inHour.size(), total);
+        });
+    }
+
+    public void removeOrder(Order order) {
+        Map<Long, RevenueRepository.Line> lines = new LinkedHashMap<>();
+        addLines(lines, order.getItems(), order.getTotal(), -1);
+        write(order, lines, -1, order.getTotal().negate());
+    }
+
+    /** Swaps an order's old lines and total for its current ones; the order count is unchanged. */
+    public void replaceLines(Order order, List<OrderItem> oldItems, Money oldTotal) {
+        Map<Long, RevenueRepository.Line> lines = new LinkedHashMap<>();
+        addLines(lines, oldItems, oldTotal, -1);
+        addLines(lines, order.getItems(), order.getTotal(), 1);
+        write(order, lines, 0, order.getTotal().minus(oldTotal));
+    }
+
+    private record OwnerHour(Integer ownerId, LocalDateTime hour) {
+    }
+
+    private void write(Order order, Map<Long, RevenueRepository.Line> lines, long orders, Money total) {
+        revenueRepo.apply(order.getUser().getId(), order.getCreatedAt().truncatedTo(ChronoUnit.HOURS),
+                new ArrayList<>(lines.values()), orders, total);
+    }
+
+    // Merges lines per product: the upsert may touch each row only once per statement
+    private static void addLines(Map<Long, RevenueRepository.Line> into, List<OrderItem> items, Money total, int sign) {
+        long quantity = items.stream().mapToLong(OrderItem::getQuantity).sum();
+        for (OrderItem item : items) {
+            if (item.getProduct() == null) continue;
+            Money revenue = lineRevenue(item, total, quantity);
+            into.merge(item.getProduct().getId(),
+                    new RevenueRepository.Line(item.getProduct().getId(), sign * (long) item.getQuantity(),
+                            sign < 0 ? revenue.negate() : revenue),
+                    (a, b) -> new RevenueRepository.Line(a.productId(), a.quantity() + b.quantity(),
+                            a.revenue().plus(b.revenue())));
+        }
+    }
+
+    /**
+     * Revenue of one line: its unit price times quantity, or for lines saved before unit prices
+     * were kept, the order total split by quantity. The backfill SQL uses the same rule.
+     */
+    static Money lineRevenue(OrderItem item, Money orderTotal, long orderQuantity) {
+        if (item.getUnitPrice() != null) {
+            return item.getUnitPrice().times(item.getQuantity());
+        }
+        if (orderQuantity == 0) return Money.ZERO;
+        return orderTotal.times(item.getQuantity(), orderQuantity);
+    }
+
+    /* ----------------------------- reading ----------------------------- */
+
+    /**
+     * Revenue of the hours overlapping {@code [from, to)}; either bound may be {@code null}. Both
+     * queries read one snapshot, from the replica when one is configured.
+     */
+    @Transactional(readOnly = true)
+    public RevenueDto report(Integer ownerId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime lower = from == null ? MIN_TIME : from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime upper = to == null ? MAX_TIME : to;
+
+        List<RevenueHourDto> hours = revenueRepo.hourTotals(ownerId, lower, upper).stream()
+                .map(h -> RevenueHourDto.builder()
+                        .start(h.bucketStart())
+                        .orders(h.orders())
+                        .revenue(h.revenue())
+                        .build())
+                .toList();
+        List<ProductRevenueDto> products = revenueRepo.productTotals(ownerId, lower, upper).stream()
+                .map(p -> ProductRevenueDto.builder()
+                        .productId(p.productId())
+                        .name(p.name())
+                        .sold(p.quantity())
+                        .revenue(p.revenue())
+                        .build())
+                .toList();
+
+        long orders = hours.stream().mapToLong(RevenueHourDto::getOrders).sum();
+        Money revenue = hours.stream().map(RevenueHourDto::getRevenue).reduce(Money.ZERO, Money::plus);
+
+        return RevenueDto.builder()
+                .revenue(revenue)
+                .orders(orders)
+                .averageOrder(orders == 0 ? Money.ZERO : revenue.divide(orders))
+                .products(products)
+                .hours(hours)
+                .build();
+    }
+}
@@ -6,7 +6,6 @@ import com.borsibaar.backend.entity.User;
 import com.borsibaar.backend.exceptions.ResourceNotFoundException;
 import com.borsibaar.backend.repository.UserRepository;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,11 +13,14 @@ import java.util.List;
 @Service
 public class UserService {
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashing passwordHashing;
+    private final PrincipalCache principalCache;
 
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordHashing passwordHashing,
+                       PrincipalCache principalCache) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashing = passwordHashing;
+        this.principalCache = principalCache;
     }
 
     public List<User> allUsers() {
@@ -46,7 +48,7 @@ public class UserService {
         User user = User.builder()
                 .fullName(dto.getFullName())
                 .email(dto.getEmail())
-                .password(passwordEncoder.encode(dto.getPassword()))
+                .password(passwordHashing.encode(dto.getPassword()))
                 .build();
         return userRepository.save(user);
     }
@@ -63,10 +65,12 @@ public class UserService {
             user.setEmail(dto.getEmail());
         }
         if (dto.getPassword() != null && !dto.getPassword().isBlank()) {
-            user.setPassword(passwordEncoder.encode(dto.getPassword()));
+            user.setPassword(passwordHashing.encode(dto.getPassword()));
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.invalidate(id);
+        return saved;
     }
 
     public void deleteUserById(Integer id) {
@@ -74,5 +78,6 @@ public class UserService {
             throw new ResourceNotFoundException("User not found with ID: " + id);
         }
         userRepository.deleteById(id);
+        principalCache.invalidate(id);
     }
 }
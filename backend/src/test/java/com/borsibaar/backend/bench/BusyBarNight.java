@@ -0,0 +1,608 @@
+package com.borsibaar.backend.bench;
+
+import com.borsibaar.backend.BackendApplication;
+import com.borsibaar.backend.service.PriceDecayService;
+import com.borsibaar.backend.service.PriceFlushService;
+import com.borsibaar.backend.support.RoundTripCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A busy bar night, compressed: boots the app in-process against the configured Postgres and plays
+ * a whole evening at one venue against it over HTTP, then checks the price trajectories it left in
+ * the database. Run it at growing tablet counts to find where a single instance saturates.
+ * <ul>
+ *   <li>tablets place orders at a rate that builds to a peak mid-night, some as rounds of several
+ *       orders seconds apart;</li>
+ *   <li>screens either poll {@code /api/products/my} with {@code If-None-Match} or hold a
+ *       {@code /api/prices/stream} connection;</li>
+ *   <li>staff log in around each shift change;</li>
+ *   <li>the decay tick runs once per virtual minute (the real scheduler keeps running as well).</li>
+ * </ul>
+ * Reported per endpoint: requests, errors, throughput, p50/p99/p999 latency and JDBC round trips
+ * per request (work a request hands to another thread, like the password check at login, is only
+ * in the total). Afterwards every product's history must chain from its starting price to its
+ * current price within min/max, and its sales count must match what the tablets ordered.
+ * <p>
+ * Run this class's {@code main} on the test classpath with the app's usual datasource settings;
+ * arguments are passed on to the app, e.g. {@code --spring.threads.virtual.enabled=true}:
+ * <pre>
+ * java -cp ... -Dbench.tablets=5,10,20,40 -Dbench.seconds=120 com.borsibaar.backend.bench.BusyBarNight
+ * </pre>
+ * Other knobs: {@code bench.screens}, {@code bench.streaming-screens}, {@code bench.staff},
+ * {@code bench.products}, {@code bench.night-hours}, {@code bench.orders-per-tablet-hour} (at the
+ * peak), {@code bench.poll-ms}, {@code bench.shift-hours} and {@code bench.seed}.
+ */
+public class BusyBarNight {
+
+    private static final String ORDERS = "POST /api/orders";
+    private static final String BOARD = "GET /api/products/my";
+    private static final String LOGIN = "POST /auth/login";
+    private static final String STREAM = "GET /api/prices/stream";
+    private static final List<String> ENDPOINTS = List.of(ORDERS, BOARD, LOGIN, STREAM);
+
+    private static final String[] CATEGORIES = {"Beer", "Cocktails", "Shots", "Cider"};
+    private static final String PASSWORD = "password1";
+
+    // Chance that an order is the first of a round, and a round's extra orders
+    private static final double ROUND_CHANCE = 0.15;
+    private static final int MAX_ROUND_EXTRA = 4;
+
+    // Staff log in within this many virtual seconds after a shift change
+    private static final double SHIFT_LOGIN_WINDOW = 600;
+
+    private record Settings(List<Integer> tablets, int screens, int streamingScreens, int staff, int products,
+                            double nightHours, int seconds, double peakOrdersPerTabletHour, long pollMillis,
+                            double shiftHours, long seed) {
+
+        static Settings fromSystemProperties() {
+            int screens = Integer.getInteger("bench.screens", 12);
+            return new Settings(
+                    Arrays.stream(System.getProperty("bench.tablets", "10").split(","))
+                            .map(String::trim).map(Integer::valueOf).toList(),
+                    screens,
+                    Integer.getInteger("bench.streaming-screens", screens / 2),
+                    Integer.getInteger("bench.staff", 6),
+                    Integer.getInteger("bench.products", 30),
+                    Double.parseDouble(System.getProperty("bench.night-hours", "6")),
+                    Integer.getInteger("bench.seconds", 120),
+                    Double.parseDouble(System.getProperty("bench.orders-per-tablet-hour", "60")),
+                    Long.getLong("bench.poll-ms", 1000),
+                    Double.parseDouble(System.getProperty("bench.shift-hours", "3")),
+                    Long.getLong("bench.seed", 42));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        QueryCounter queries = new QueryCounter();
+        // the configured Postgres rather than a compose one, and no SQL or per-chunk decay logging on stdout
+        defaultProperty("spring.docker.compose.enabled", "false");
+        defaultProperty("spring.jpa.show-sql", "false");
+        defaultProperty("logging.level.com.borsibaar.backend.service.PriceDecayService", "warn");
+
+        SpringApplication application = new SpringApplication(BackendApplication.class);
+        application.addInitializers(context -> {
+            FilterRegistrationBean<QueryCounter> registration = new FilterRegistrationBean<>(queries);
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            context.getBeanFactory().registerSingleton("busyBarNightQueryCounter", registration);
+        });
+        String[] appArgs = new String[args.length + 2];
+        appArgs[0] = "--server.port=0";
+        appArgs[1] = "--management.server.port=0";
+        System.arraycopy(args, 0, appArgs, 2, args.length);
+
+        List<String> summary = new ArrayList<>();
+        try (ConfigurableApplicationContext app = application.run(appArgs)) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            for (int tablets : settings.tablets()) {
+                Night night = new Night(app, "http://localhost:" + port, settings, tablets, queries);
+                night.open();
+                night.run();
+                summary.add(night.report());
+            }
+        }
+        if (summary.size() > 1) {
+            System.out.println();
+            System.out.println("Summary");
+            summary.forEach(System.out::println);
+        }
+    }
+
+    private static void defaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) System.setProperty(key, value);
+    }
+
+    /** One venue's evening at a given tablet count. */
+    private static final class Night {
+        private final ConfigurableApplicationContext app;
+        private final String url;
+        private final Settings settings;
+        private final int tablets;
+        private final QueryCounter queries;
+        private final ObjectMapper json = new ObjectMapper();
+        private final HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        private final Map<String, Latencies> latencies = new LinkedHashMap<>();
+        private final Latencies decayTicks = new Latencies();
+        private final LongAdder missedTicks = new LongAdder();
+        private final LongAdder streamEvents = new LongAdder();
+        private final List<Flow.Subscription> streams = new CopyOnWriteArrayList<>();
+
+        private final String tag = UUID.randomUUID().toString().substring(0, 8);
+        private final List<String> staff = new ArrayList<>();
+        private String token;
+        private long[] productIds;
+        private BigDecimal[] startPrices;
+        private double[] popularity;
+        private AtomicLongArray ordered;
+
+        private double scale;
+        private long start;
+        private long end;
+        private long roundTrips;
+
+        Night(ConfigurableApplicationContext app, String url, Settings settings, int tablets, QueryCounter queries) {
+            this.app = app;
+            this.url = url;
+            this.settings = settings;
+            this.tablets = tablets;
+            this.queries = queries;
+            ENDPOINTS.forEach(e -> latencies.put(e, new Latencies()));
+        }
+
+        /** Signs the venue and its staff up, and stocks the bar. */
+        void open() throws Exception {
+            String owner = "night-" + tag + "@bench.local";
+            token = signUp(owner, "Night " + tag);
+            for (int i = 0; i < settings.staff(); i++) {
+                String email = "night-" + tag + "-staff" + i + "@bench.local";
+                signUp(email, "Staff " + i);
+                staff.add(email);
+            }
+
+            long[] categories = new long[CATEGORIES.length];
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                categories[i] = post("/api/categories", Map.of("name", CATEGORIES[i] + " " + tag)).get("id").asLong();
+            }
+
+            SplittableRandom random = new SplittableRandom(settings.seed());
+            productIds = new long[settings.products()];
+            startPrices = new BigDecimal[settings.products()];
+            for (int i = 0; i < settings.products(); i++) {
+                JsonNode product = post("/api/products", Map.of(
+                        "name", "Drink " + i,
+                        "price", BigDecimal.valueOf(random.nextLong(450, 851), 2),
+                        "categoryId", categories[i % categories.length]));
+                productIds[i] = product.get("id").asLong();
+                startPrices[i] = product.get("price").decimalValue();
+            }
+            ordered = new AtomicLongArray(settings.products());
+
+            // Zipf-like: a few drinks sell most, in no particular category
+            popularity = new double[settings.products()];
+            double sum = 0;
+            for (int rank = 1; rank <= popularity.length; rank++) {
+                sum += 1.0 / rank;
+                popularity[rank - 1] = sum;
+            }
+            for (int i = 0; i < popularity.length; i++) popularity[i] /= sum;
+        }
+
+        void run() throws Exception {
+            scale = settings.nightHours() * 3600 / settings.seconds();
+            queries.reset();
+            long queriesBefore = RoundTripCounter.total();
+            start = System.nanoTime();
+            end = start + Duration.ofSeconds(settings.seconds()).toNanos();
+
+            try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int t = 0; t < tablets; t++) {
+                    long seed = settings.seed() * 31 + t;
+                    threads.submit(() -> tablet(new SplittableRandom(seed)));
+                }
+                for (int s = 0; s < settings.screens(); s++) {
+                    long offset = settings.pollMillis() * s / Math.max(1, settings.screens());
+                    threads.submit(s < settings.streamingScreens() ? this::streamingScreen : () -> pollingScreen(offset));
+                }
+                SplittableRandom shifts = new SplittableRandom(settings.seed() + 1);
+                for (double shift = 0; shift < settings.nightHours(); shift += settings.shiftHours()) {
+                    for (String email : staff) {
+                        double at = shift * 3600 + shifts.nextDouble() * SHIFT_LOGIN_WINDOW;
+                        threads.submit(() -> staffLogin(email, at));
+                    }
+                }
+                threads.submit(this::decay);
+            }
+
+            streams.forEach(Flow.Subscription::cancel);
+            app.getBean(PriceFlushService.class).flush();
+            roundTrips = RoundTripCounter.total() - queriesBefore;
+        }
+
+        /* ------------------------------ actors ----------------------------- */
+
+        private void tablet(SplittableRandom random) {
+            while (running()) {
+                double perHour = settings.peakOrdersPerTabletHour() * demand(virtualSeconds() / (settings.nightHours() * 3600));
+                sleepVirtual(-Math.log(1 - random.nextDouble()) * 3600 / perHour);
+                int round = random.nextDouble() < ROUND_CHANCE ? 2 + random.nextInt(MAX_ROUND_EXTRA) : 1;
+                for (int i = 0; i < round && running(); i++) {
+                    placeOrder(random);
+                    if (i + 1 < round) sleepVirtual(1 + random.nextDouble() * 4);
+                }
+            }
+        }
+
+        private void placeOrder(SplittableRandom random) {
+            // 1-4 distinct drinks, mostly one
+            double r = random.nextDouble();
+            int lines = r < 0.5 ? 1 : r < 0.8 ? 2 : r < 0.95 ? 3 : 4;
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
+            while (quantities.size() < Math.min(lines, productIds.length)) {
+                quantities.putIfAbsent(pick(random), random.nextDouble() < 0.7 ? 1 : 2 + random.nextInt(2));
+            }
+
+            List<Map<String, Object>> items = new ArrayList<>();
+            quantities.forEach((i, q) -> items.add(Map.of("product", Map.of("id", productIds[i]), "quantity", q)));
+            HttpResponse<Void> response = send(ORDERS, authorized("/api/orders")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(write(Map.of("items", items))))
+                    .build(), Set.of(201));
+            if (response != null) quantities.forEach(ordered::addAndGet);
+        }
+
+        private void pollingScreen(long offsetMillis) {
+            sleepReal(offsetMillis);
+            String etag = null;
+            while (running()) {
+                HttpRequest.Builder request = authorized("/api/products/my").header("Accept-Encoding", "gzip");
+                if (etag != null) request.header("If-None-Match", etag);
+                HttpResponse<Void> response = send(BOARD, request.GET().build(), Set.of(200, 304));
+                if (response != null) etag = response.headers().firstValue("ETag").orElse(etag);
+                sleepReal(settings.pollMillis());
+            }
+        }
+
+        private void streamingScreen() {
+            Latencies connects = latencies.get(STREAM);
+            long t0 = System.nanoTime();
+            http.sendAsync(authorized("/api/prices/stream").GET().build(), info -> {
+                if (info.statusCode() == 200) connects.ok(System.nanoTime() - t0);
+                else connects.failed();
+                return HttpResponse.BodySubscribers.fromLineSubscriber(new EventCounter());
+            }).exceptionally(e -> {
+                if (running()) connects.failed();
+                return null;
+            });
+            sleepReal((end - System.nanoTime()) / 1_000_000);
+        }
+
+        private void staffLogin(String email, double atVirtualSeconds) {
+            sleepVirtual(atVirtualSeconds - virtualSeconds());
+            if (!running()) return;
+            send(LOGIN, HttpRequest.newBuilder(URI.create(url + "/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(write(Map.of("email", email, "password", PASSWORD))))
+                    .build(), Set.of(200));
+        }
+
+        /** Ticks at a fixed virtual rate; a tick that comes due while the last one still runs is missed. */
+        private void decay() {
+            PriceDecayService decay = app.getBean(PriceDecayService.class);
+            for (double due = 60; ; due += 60) {
+                sleepVirtual(due - virtualSeconds());
+                if (!running()) break;
+                if (virtualSeconds() - due >= 60) {
+                    missedTicks.increment();
+                    continue;
+                }
+                long t0 = System.nanoTime();
+                decay.decayPrices();
+                decayTicks.ok(System.nanoTime() - t0);
+            }
+        }
+
+        /** Share of the peak order rate: quiet at opening, busiest in the middle of the night. */
+        private static double demand(double fractionOfNight) {
+            double s = Math.sin(Math.PI * Math.min(1, Math.max(0, fractionOfNight)));
+            return 0.2 + 0.8 * s * s;
+        }
+
+        private int pick(SplittableRandom random) {
+            int i = Arrays.binarySearch(popularity, random.nextDouble());
+            return Math.min(popularity.length - 1, i < 0 ? -i - 1 : i);
+        }
+
+        private final class EventCounter implements Flow.Subscriber<String> {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                streams.add(subscription);
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(String line) {
+                if (line.startsWith("event:")) streamEvents.increment();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        }
+
+        /* ----------------------------- checking ---------------------------- */
+
+        /**
+         * Every product's history, in the order it was written, must start at the price the
+         * product was created with, move from each price to the next, stay within min/max and end
+         * at the stored price; the stored sales count must match what the tablets got orders for.
+         */
+        private List<String> checkTrajectories() {
+            JdbcTemplate jdbc = app.getBean(JdbcTemplate.class);
+            List<String> problems = new ArrayList<>();
+            for (int i = 0; i < productIds.length; i++) {
+                long id = productIds[i];
+                Map<String, Object> row = jdbc.queryForMap(
+                        "SELECT price, min_price, max_price, sales_count FROM products WHERE id = ?", id);
+                BigDecimal min = (BigDecimal) row.get("min_price");
+                BigDecimal max = (BigDecimal) row.get("max_price");
+
+                BigDecimal price = startPrices[i];
+                int step = 0;
+                for (Map<String, Object> move : jdbc.queryForList(
+                        "SELECT old_price, new_price FROM price_history WHERE product_id = ? ORDER BY id", id)) {
+                    BigDecimal from = (BigDecimal) move.get("old_price");
+                    BigDecimal to = (BigDecimal) move.get("new_price");
+                    if (from.compareTo(price) != 0) {
+                        problems.add("product " + id + " move " + step + " starts at " + from + ", price was " + price);
+                    }
+                    if (to.compareTo(min) < 0 || to.compareTo(max) > 0) {
+                        problems.add("product " + id + " move " + step + " to " + to + " is outside " + min + "-" + max);
+                    }
+                    price = to;
+                    step++;
+                }
+                if (price.compareTo((BigDecimal) row.get("price")) != 0) {
+                    problems.add("product " + id + " history ends at " + price + ", stored price is " + row.get("price"));
+                }
+                long sold = ((Number) row.get("sales_count")).longValue();
+                if (sold != ordered.get(i)) {
+                    problems.add("product " + id + " sold " + sold + ", tablets ordered " + ordered.get(i));
+                }
+            }
+            return problems;
+        }
+
+        /* ----------------------------- reporting --------------------------- */
+
+        /** Prints the night's report and returns its one-line summary. */
+        String report() {
+            double seconds = settings.seconds();
+            System.out.printf("%nBusy bar night: %d tablets, %d screens (%d streaming), %d staff, %d products, %.1f h in %d s%n",
+                    tablets, settings.screens(), settings.streamingScreens(), settings.staff(), settings.products(),
+                    settings.nightHours(), settings.seconds());
+            System.out.printf("%-24s %9s %7s %9s %9s %9s %9s %10s%n",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "jdbc/req");
+            long requests = 0;
+            for (String endpoint : ENDPOINTS) {
+                Latencies l = latencies.get(endpoint);
+                long[] sorted = l.sorted();
+                requests += sorted.length;
+                System.out.printf("%-24s %9d %7d %9.1f %9.1f %9.1f %9.1f %10s%n",
+                        endpoint, sorted.length, l.errors.sum(), sorted.length / seconds,
+                        percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                        sorted.length == 0 ? "-" : String.format("%.1f", queries.perRequest(endpoint)));
+            }
+            long[] ticks = decayTicks.sorted();
+            System.out.printf("stream events %d (%.1f/s per streaming screen), decay ticks %d, %d missed (p50 %.1f ms, max %.1f ms)%n",
+                    streamEvents.sum(), streamEvents.sum() / seconds / Math.max(1, settings.streamingScreens()),
+                    ticks.length, missedTicks.sum(), percentile(ticks, 0.5), percentile(ticks, 1.0));
+            System.out.printf("throughput %.1f req/s, jdbc round trips %d (%.1f/s)%n",
+                    requests / seconds, roundTrips, roundTrips / seconds);
+
+            List<String> problems = checkTrajectories();
+            long moves = app.getBean(JdbcTemplate.class).queryForObject(
+                    "SELECT count(*) FROM price_history WHERE product_id = ANY(?)", Long.class, (Object) productIdArray());
+            System.out.printf("price trajectories: %d products, %d moves, %s%n",
+                    productIds.length, moves, problems.isEmpty() ? "OK" : problems.size() + " problems");
+            problems.stream().limit(20).forEach(p -> System.out.println("  " + p));
+
+            long[] orders = latencies.get(ORDERS).sorted();
+            return String.format("tablets=%d orders/s=%.1f order p99=%.1f ms errors=%d trajectories=%s",
+                    tablets, orders.length / seconds, percentile(orders, 0.99),
+                    latencies.values().stream().mapToLong(l -> l.errors.sum()).sum(),
+                    problems.isEmpty() ? "OK" : "FAILED");
+        }
+
+        private Long[] productIdArray() {
+            return Arrays.stream(productIds).boxed().toArray(Long[]::new);
+        }
+
+        /* ------------------------------ plumbing --------------------------- */
+
+        private boolean running() {
+            return System.nanoTime() < end;
+        }
+
+        private double virtualSeconds() {
+            return (System.nanoTime() - start) / 1e9 * scale;
+        }
+
+        private void sleepVirtual(double virtualSeconds) {
+            sleepReal((long) (virtualSeconds / scale * 1000));
+        }
+
+        /** Sleeps, but never past the end of the night. */
+        private void sleepReal(long millis) {
+            long left = (end - System.nanoTime()) / 1_000_000;
+            try {
+                if (Math.min(millis, left) > 0) Thread.sleep(Math.min(millis, left));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private HttpRequest.Builder authorized(String path) {
+            return HttpRequest.newBuilder(URI.create(url + path))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(60));
+        }
+
+        /** Times one request; {@code null} if it failed or answered with another status. */
+        private HttpResponse<Void> send(String endpoint, HttpRequest request, Set<Integer> expected) {
+            Latencies l = latencies.get(endpoint);
+            long t0 = System.nanoTime();
+            try {
+                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                if (expected.contains(response.statusCode())) {
+                    l.ok(System.nanoTime() - t0);
+                    return response;
+                }
+            } catch (IOException e) {
+                // counted below
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            l.failed();
+            return null;
+        }
+
+        private String signUp(String email, String fullName) throws Exception {
+            postJson("/auth/signup", null, Map.of("fullName", fullName, "email", email, "password", PASSWORD));
+            return postJson("/auth/login", null, Map.of("email", email, "password", PASSWORD)).get("token").asText();
+        }
+
+        private JsonNode post(String path, Object body) throws Exception {
+            return postJson(path, token, body);
+        }
+
+        private JsonNode postJson(String path, String bearer, Object body) throws Exception {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(write(body)));
+            if (bearer != null) request.header("Authorization", "Bearer " + bearer);
+            HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException(path + " answered " + response.statusCode() + ": " + response.body());
+            }
+            return json.readTree(response.body());
+        }
+
+        private String write(Object body) {
+            try {
+                return json.writeValueAsString(body);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /** Latency samples of one endpoint, in nanoseconds. */
+    private static final class Latencies {
+        private long[] samples = new long[4096];
+        private int size;
+        final LongAdder errors = new LongAdder();
+
+        synchronized void ok(long nanos) {
+            if (size == samples.length) samples = Arrays.copyOf(samples, size * 2);
+            samples[size++] = nanos;
+        }
+
+        void failed() {
+            errors.increment();
+        }
+
+        synchronized long[] sorted() {
+            long[] out = Arrays.copyOf(samples, size);
+            Arrays.sort(out);
+            return out;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+
+    /** Server side: JDBC round trips each endpoint made on its request thread. */
+    private static final class QueryCounter extends OncePerRequestFilter {
+        private final Map<String, LongAdder> roundTrips = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+
+        void reset() {
+            roundTrips.clear();
+            requests.clear();
+        }
+
+        double perRequest(String endpoint) {
+            LongAdder n = requests.get(endpoint);
+            return n == null || n.sum() == 0 ? 0 : roundTrips.get(endpoint).sum() / (double) n.sum();
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            String endpoint = request.getMethod() + " " + request.getRequestURI();
+            if (!ENDPOINTS.contains(endpoint)) {
+                chain.doFilter(request, response);
+                return;
+            }
+            Exception[] failure = new Exception[1];
+            int count = RoundTripCounter.count(() -> {
+                try {
+                    chain.doFilter(request, response);
+                } catch (IOException | ServletException e) {
+                    failure[0] = e;
+                }
+            });
+            roundTrips.computeIfAbsent(endpoint, e -> new LongAdder()).add(count);
+            requests.computeIfAbsent(endpoint, e -> new LongAdder()).increment();
+            if (failure[0] instanceof IOException e) throw e;
+            if (failure[0] instanceof ServletException e) throw e;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.borsibaar.backend.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Requests per second a running backend serves to many screens polling at once, for comparing
+ * platform threads with {@code spring.threads.virtual.enabled=true}. Each client loops over the
+ * board, its order page (a database read) and the revenue summary with no think time.
+ * <p>
+ * Start the app in the mode under test, then run this class's {@code main} on the test classpath:
+ * <pre>
+ * java -cp ... com.borsibaar.backend.bench.ConcurrentClientsBenchmark \
+ *     -Dbench.url=http://localhost:8080 -Dbench.clients=1000 -Dbench.seconds=30
+ * </pre>
+ * {@code bench.email} / {@code bench.password} name the account to use (signed up if missing).
+ */
+public class ConcurrentClientsBenchmark {
+
+    private static final List<String> PATHS = List.of(
+            "/api/products/my",
+            "/api/orders/my/page?size=20",
+            "/api/revenue");
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.url", "http://localhost:8080");
+        int clients = Integer.getInteger("bench.clients", 1000);
+        int seconds = Integer.getInteger("bench.seconds", 30);
+        int warmup = Integer.getInteger("bench.warmup-seconds", 5);
+        String email = System.getProperty("bench.email", "bench@borsibaar.ee");
+        String password = System.getProperty("bench.password", "password1");
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        String token = login(http, url, email, password);
+
+        LongAdder ok = new LongAdder();
+        LongAdder failed = new LongAdder();
+        ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong measureFrom = new AtomicLong(Long.MAX_VALUE);
+        long start = System.nanoTime();
+        long measureStart = start + Duration.ofSeconds(warmup).toNanos();
+        long end = measureStart + Duration.ofSeconds(seconds).toNanos();
+        CountDownLatch done = new CountDownLatch(clients);
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                pool.submit(() -> {
+                    long[] mine = new long[1 << 16];
+                    int n = 0;
+                    try {
+                        for (int i = client; System.nanoTime() < end; i++) {
+                            HttpRequest request = HttpRequest.newBuilder(URI.create(url + PATHS.get(i % PATHS.size())))
+                                    .header("Authorization", "Bearer " + token)
+                                    .timeout(Duration.ofSeconds(60))
+                                    .build();
+                            long t0 = System.nanoTime();
+                            boolean success;
+                            try {
+                                success = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                            } catch (Exception e) {
+                                success = false;
+                            }
+                            long t1 = System.nanoTime();
+                            if (t0 < measureStart) continue;
+                            measureFrom.accumulateAndGet(t0, Math::min);
+                            if (success) {
+                                ok.increment();
+                                if (n < mine.length) mine[n++] = t1 - t0;
+                            } else {
+                                failed.increment();
+                            }
+                        }
+                    } finally {
+                        latencies.add(Arrays.copyOf(mine, n));
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+
+        double elapsed = (System.nanoTime() - Math.min(measureFrom.get(), end)) / 1e9;
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("clients=%d seconds=%d ok=%d failed=%d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                clients, seconds, ok.sum(), failed.sum(), ok.sum() / elapsed,
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+
+    private static String login(HttpClient http, String url, String email, String password) throws Exception {
+        String body = "{\"fullName\":\"Bench\",\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+        for (String path : List.of("/auth/login", "/auth/signup")) {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(url + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Matcher token = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(response.body());
+            if (response.statusCode() == 200 && token.find()) return token.group(1);
+        }
+        throw new IllegalStateException("Could not log in or sign up as " + email);
+    }
+}
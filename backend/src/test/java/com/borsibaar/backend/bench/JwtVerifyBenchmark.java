@@ -0,0 +1,84 @@
+package com.borsibaar.backend.bench;
+
+import com.borsibaar.backend.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens verified per second by the JWT filter: the old path (a fresh parser and three parses per
+ * request), one parse with the shared parser, and the verified-token cache.
+ * <p>
+ * Run with {@code mvn test-compile} and then this class's {@code main} on the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "dGhpcy1pcy1hLXRlc3Qta2V5LWZvci1ib3JzaWJhYXItand0cy0xMjM0NTY3OA==";
+
+    private Key key;
+    private JwtParser parser;
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", 10_000);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        token = jwtService.generateTokenForUser("bar@borsibaar.ee");
+    }
+
+    /** What the filter did before: extractUsername, then extractUsername and extractExpiration again. */
+    @Benchmark
+    public boolean legacyThreeParses() {
+        String subject = parse(token).getSubject();
+        String again = parse(token).getSubject();
+        Date expiry = parse(token).getExpiration();
+        return subject.equals(again) && expiry.after(new Date());
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public JwtService.VerifiedToken cachedVerify() {
+        return jwtService.verify(token);
+    }
+
+    private Claims parse(String jwt) {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
+    }
+
+    /** Accepts the usual JMH command line options, e.g. {@code -wi 1 -i 3}. */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(JwtVerifyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,160 @@
+package com.borsibaar.backend.bench;
+
+import com.borsibaar.backend.dtos.OrderDto;
+import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.Order;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.OrderItemRepository;
+import com.borsibaar.backend.repository.OrderRepository;
+import com.borsibaar.backend.repository.ProductRepository;
+import com.borsibaar.backend.repository.RevenueRepository;
+import com.borsibaar.backend.service.OrderService;
+import com.borsibaar.backend.service.PriceBook;
+import com.borsibaar.backend.service.ProductService;
+import com.borsibaar.backend.service.RevenueService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Taking one order: {@link OrderService#save} resolving its products, selling each line and moving
+ * its price in the price book, building the order with its items and its revenue rollup lines.
+ * Repositories are in-memory stubs, so this is the CPU and allocation cost of an order without the
+ * database.
+ * <p>
+ * Before each order its products are put back at their catalog price, otherwise every price would
+ * be pinned at min/max after a few dozen sales and no moves would be measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderPricingBenchmark {
+
+    private static final int ORDERS = 1024;
+
+    @Param({"10", "1000", "10000"})
+    public int products;
+
+    @Param({"1", "5", "20"})
+    public int lines;
+
+    private OrderService orderService;
+    private PriceBook priceBook;
+    private User user;
+    private Product[] catalog;
+    private Money[] catalogPrices;
+    private OrderDto[] orders;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        user = User.builder().id(1).build();
+        Category beer = Category.builder().id(1L).name("Beer").build();
+        Category cocktails = Category.builder().id(2L).name("Cocktails").build();
+
+        catalog = new Product[products];
+        catalogPrices = new Money[products];
+        for (int i = 0; i < products; i++) {
+            catalogPrices[i] = Money.ofCents(random.nextLong(400, 901));
+            catalog[i] = Product.builder()
+                    .id(i + 1L)
+                    .name("Product " + (i + 1))
+                    .price(catalogPrices[i])
+                    .minPrice(Money.ofCents(400))
+                    .maxPrice(Money.ofCents(900))
+                    .salesCount(0L)
+                    .category(i % 4 == 0 ? cocktails : beer)
+                    .owner(user)
+                    .build();
+        }
+
+        // a ring of orders with distinct products per order, as far as the catalog allows
+        orders = new OrderDto[ORDERS];
+        for (int o = 0; o < ORDERS; o++) {
+            List<OrderItemDto> items = new ArrayList<>(lines);
+            int start = random.nextInt(products);
+            for (int l = 0; l < lines; l++) {
+                items.add(OrderItemDto.builder()
+                        .product(ProductDTO.builder().id(catalog[(start + l) % products].getId()).build())
+                        .quantity(1 + random.nextInt(3))
+                        .build());
+            }
+            orders[o] = OrderDto.builder().items(items).build();
+        }
+
+        ProductRepository productRepo = Stubs.answering(ProductRepository.class, "findAllWithCategoryByIdIn", args -> {
+            @SuppressWarnings("unchecked") Collection<Long> ids = (Collection<Long>) args[0];
+            return ids.stream().map(id -> catalog[(int) (id - 1)]).toList();
+        });
+        OrderRepository orderRepo = Stubs.answering(OrderRepository.class, "save", args -> args[0]);
+        // the rollup lines are computed for real, only the upsert is dropped
+        RevenueRepository revenueRepo = new RevenueRepository(null) {
+            @Override
+            public void apply(int ownerId, LocalDateTime hour, List<Line> lines, long orders, Money total) {
+            }
+        };
+
+        priceBook = new PriceBook(null);
+        for (Product p : catalog) priceBook.track(p);
+        orderService = new OrderService(
+                orderRepo,
+                mock(OrderItemRepository.class),
+                productRepo,
+                priceBook,
+                mock(ProductService.class),
+                new RevenueService(revenueRepo, null),
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Resets the next order's products and drops what the previous orders left for the flush.
+     * Saving copies the book's price onto the entity, so the catalog price is put back first.
+     */
+    @Setup(Level.Invocation)
+    public void resetPrices() {
+        List<Long> ids = new ArrayList<>(lines);
+        for (OrderItemDto item : orders[next].getItems()) {
+            int i = (int) (item.getProduct().getId() - 1);
+            catalog[i].setPrice(catalogPrices[i]);
+            priceBook.track(catalog[i]);
+            ids.add(catalog[i].getId());
+        }
+        priceBook.drain(ids);
+    }
+
+    @Benchmark
+    public Order takeOrder() {
+        OrderDto order = orders[next];
+        next = (next + 1) % ORDERS;
+        return orderService.save(order, user);
+    }
+
+    /** Accepts the usual JMH command line options, e.g. {@code -p lines=20}. */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(OrderPricingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.borsibaar.backend.bench;
+
+import ch.qos.logback.classic.Logger;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PendingFlush;
+import com.borsibaar.backend.entity.PriceChange;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.PriceBookRepository;
+import com.borsibaar.backend.repository.PriceTickStore;
+import com.borsibaar.backend.service.BoardVersions;
+import com.borsibaar.backend.service.PriceBook;
+import com.borsibaar.backend.service.PriceDecayService;
+import com.borsibaar.backend.service.PriceFlushService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One decay tick, {@link PriceDecayService#decayPrices}, over the whole price book: scanning every
+ * product, stepping the idle ones down and handing each moved chunk to the flush. The flush runs
+ * for real down to the repository and tick store, which are stubs.
+ * <p>
+ * The catalog prices are restored before each tick so every tick moves the same products; one
+ * in five sold a minute ago and is skipped by the grace period.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceDecayBenchmark {
+
+    private static final int OWNERS = 10;
+
+    @Param({"10", "1000", "10000"})
+    public int products;
+
+    private PriceDecayService decayService;
+    private PriceBook priceBook;
+    private Product[] catalog;
+    private Money[] catalogPrices;
+
+    @Setup
+    public void setUp() {
+        // a chunk log line per owner and tick would swamp the output
+        ((Logger) LoggerFactory.getLogger(PriceDecayService.class)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        SplittableRandom random = new SplittableRandom(42);
+        Category beer = Category.builder().id(1L).name("Beer").build();
+        Category cocktails = Category.builder().id(2L).name("Cocktails").build();
+        LocalDateTime justSold = LocalDateTime.now().minusMinutes(1);
+
+        catalog = new Product[products];
+        catalogPrices = new Money[products];
+        for (int i = 0; i < products; i++) {
+            catalogPrices[i] = Money.ofCents(random.nextLong(500, 901));
+            catalog[i] = Product.builder()
+                    .id(i + 1L)
+                    .name("Product " + (i + 1))
+                    .price(catalogPrices[i])
+                    .minPrice(Money.ofCents(400))
+                    .maxPrice(Money.ofCents(900))
+                    .salesCount(0L)
+                    .lastSaleAt(i % 5 == 0 ? justSold : null)
+                    .category(i % 4 == 0 ? cocktails : beer)
+                    .owner(User.builder().id(i % OWNERS + 1).build())
+                    .build();
+        }
+
+        priceBook = new PriceBook(null);
+        PriceBookRepository priceBookRepo = new PriceBookRepository(null) {
+            @Override
+            public int write(List<PendingFlush> pending) {
+                return pending.size();
+            }
+        };
+        PriceTickStore tickStore = new PriceTickStore(null, null, null, null, 0) {
+            @Override
+            public void append(List<PriceChange> changes) {
+            }
+        };
+        PriceFlushService flushService = new PriceFlushService(priceBook, priceBookRepo, tickStore, new BoardVersions(priceBook));
+        ReflectionTestUtils.setField(flushService, "chunkSize", 500);
+        decayService = new PriceDecayService(priceBook, flushService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(decayService, "chunkSize", 500);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetPrices() {
+        for (int i = 0; i < products; i++) {
+            catalog[i].setPrice(catalogPrices[i]);
+            priceBook.track(catalog[i]);
+        }
+        priceBook.drain();
+    }
+
+    @Benchmark
+    public void decayTick() {
+        decayService.decayPrices();
+    }
+
+    /** Accepts the usual JMH command line options, e.g. {@code -p products=10000}. */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(PriceDecayBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,111 @@
+package com.borsibaar.backend.bench;
+
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.CategoryRepository;
+import com.borsibaar.backend.repository.PriceHistoryRepository;
+import com.borsibaar.backend.repository.ProductRepository;
+import com.borsibaar.backend.service.BoardVersions;
+import com.borsibaar.backend.service.PriceBook;
+import com.borsibaar.backend.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Building a product board: {@link ProductService#buildDtos} for a whole catalog, i.e. the price
+ * book quotes, last change and EMA prediction per product. The history query is answered from
+ * memory with up to 8 deltas per product, capped at 10k rows, so only the CPU side is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductDtoBenchmark {
+
+    private static final int WINDOW = 8;
+    private static final int MAX_HISTORY_ROWS = 10_000;
+
+    @Param({"10", "1000", "10000"})
+    public int products;
+
+    private ProductService productService;
+    private List<Product> catalog;
+
+    /** One row of the recent-changes query. */
+    record Change(Long getProductId, long getDeltaCents) implements PriceHistoryRepository.RecentChange {
+    }
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        User owner = User.builder().id(1).build();
+        Category beer = Category.builder().id(1L).name("Beer").build();
+        Category cocktails = Category.builder().id(2L).name("Cocktails").build();
+
+        catalog = new ArrayList<>(products);
+        for (long id = 1; id <= products; id++) {
+            catalog.add(Product.builder()
+                    .id(id)
+                    .name("Product " + id)
+                    .price(Money.ofCents(random.nextLong(400, 901)))
+                    .minPrice(Money.ofCents(400))
+                    .maxPrice(Money.ofCents(900))
+                    .salesCount(0L)
+                    .category(id % 4 == 0 ? cocktails : beer)
+                    .owner(owner)
+                    .build());
+        }
+
+        // newest first per product, as the query returns them
+        int perProduct = Math.min(WINDOW, Math.max(1, MAX_HISTORY_ROWS / products));
+        List<PriceHistoryRepository.RecentChange> history = new ArrayList<>();
+        for (Product p : catalog) {
+            for (int i = 0; i < perProduct; i++) {
+                history.add(new Change(p.getId(), random.nextLong(-60, 61)));
+            }
+        }
+
+        PriceHistoryRepository historyRepo = Stubs.answering(PriceHistoryRepository.class, "findRecentChanges", args -> history);
+
+        PriceBook priceBook = new PriceBook(null);
+        catalog.forEach(priceBook::track);
+        productService = new ProductService(
+                mock(ProductRepository.class),
+                mock(CategoryRepository.class),
+                historyRepo,
+                priceBook,
+                mock(BoardVersions.class),
+                new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public Map<Long, ProductDTO> buildBoard() {
+        return productService.buildDtos(catalog);
+    }
+
+    /** Accepts the usual JMH command line options, e.g. {@code -p products=1000}. */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ProductDtoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
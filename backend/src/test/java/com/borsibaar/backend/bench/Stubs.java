@@ -0,0 +1,29 @@
+package com.borsibaar.backend.bench;
+
+import java.lang.reflect.Proxy;
+import java.util.function.Function;
+
+/**
+ * Allocation-light stand-ins for repository interfaces on measured paths. Mockito records the call
+ * site of every invocation, which costs tens of microseconds and would dwarf what is measured.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    /** A {@code type} whose {@code method} answers with {@code answer}; any other call throws. */
+    static <T> T answering(Class<T> type, String method, Function<Object[], Object> answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, m, args) -> {
+            if (m.getName().equals(method)) return answer.apply(args);
+            if (m.getDeclaringClass() == Object.class) {
+                return switch (m.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName() + " stub";
+                };
+            }
+            throw new UnsupportedOperationException(type.getSimpleName() + "." + m.getName());
+        }));
+    }
+}
@@ -0,0 +1,43 @@
+package com.borsibaar.backend.configs;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Per-bar metrics are only served on the management port; health is public on either. */
+@AutoConfigureObservability(tracing = false) // tests leave out metrics export, and with it the scrape endpoint
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "management.server.port=0")
+class ActuatorSecurityTest {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @LocalServerPort private int port;
+    @LocalManagementPort private int managementPort;
+
+    private HttpResponse<String> get(int port, String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void prometheusIsOnlyServedOnTheManagementPort() throws Exception {
+        assertNotEquals(port, managementPort);
+
+        HttpResponse<String> scrape = get(managementPort, "/actuator/prometheus");
+        assertEquals(200, scrape.statusCode());
+        assertTrue(scrape.body().contains("application=\"borsibaar\""), scrape.body());
+        assertEquals(200, get(managementPort, "/actuator/health").statusCode());
+
+        assertEquals(403, get(port, "/actuator/prometheus").statusCode());
+    }
+}
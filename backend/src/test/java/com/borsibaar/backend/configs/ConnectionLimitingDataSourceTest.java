@@ -0,0 +1,62 @@
+package com.borsibaar.backend.configs;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionLimitingDataSourceTest {
+
+    private final DataSource target = mock(DataSource.class);
+    private final ConnectionLimitingDataSource limited = new ConnectionLimitingDataSource(target, 2, 50);
+
+    ConnectionLimitingDataSourceTest() throws SQLException {
+        when(target.getConnection()).thenAnswer(i -> mock(Connection.class));
+    }
+
+    @Test
+    void callersBeyondThePermitsTimeOut() throws Exception {
+        Connection a = limited.getConnection();
+        Connection b = limited.getConnection();
+        assertEquals(0, limited.available());
+
+        assertThrows(SQLTransientConnectionException.class, limited::getConnection);
+        verify(target, times(2)).getConnection();
+
+        a.close();
+        assertNotNull(limited.getConnection());
+        b.close();
+    }
+
+    @Test
+    void closingTwiceReleasesOnce() throws Exception {
+        Connection a = limited.getConnection();
+        a.close();
+        a.close();
+        assertEquals(2, limited.available());
+    }
+
+    @Test
+    void failedCheckoutGivesThePermitBack() throws Exception {
+        when(target.getConnection()).thenThrow(new SQLException("down"));
+        assertThrows(SQLException.class, limited::getConnection);
+        assertEquals(2, limited.available());
+    }
+
+    @Test
+    void callsReachTheRealConnection() throws Exception {
+        Connection real = mock(Connection.class);
+        when(target.getConnection()).thenReturn(real);
+
+        Connection a = limited.getConnection();
+        a.setAutoCommit(false);
+        a.close();
+        verify(real).setAutoCommit(false);
+        verify(real).close();
+    }
+}
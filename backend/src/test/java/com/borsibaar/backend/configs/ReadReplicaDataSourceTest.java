@@ -0,0 +1,168 @@
+package com.borsibaar.backend.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadReplicaDataSourceTest {
+
+    private static final String SERVICE_TX = "com.borsibaar.backend.service.RevenueService.report";
+
+    private final HikariDataSource primary = mock(HikariDataSource.class);
+    private final HikariDataSource replica = mock(HikariDataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    // WAL positions the lag check reads; null replay means "not a standby"
+    private final AtomicReference<String> primaryLsn = new AtomicReference<>("0/100");
+    private final AtomicReference<String> replayLsn = new AtomicReference<>("0/100");
+
+    private ReadReplicaDataSource routing;
+
+    ReadReplicaDataSourceTest() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        answerLsn(primaryConnection, primaryLsn);
+        answerLsn(replicaConnection, replayLsn);
+    }
+
+    private static void answerLsn(Connection connection, AtomicReference<String> lsn) throws SQLException {
+        when(connection.createStatement()).thenAnswer(i -> {
+            Statement statement = mock(Statement.class);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenReturn(true);
+            when(rs.getString(1)).thenAnswer(j -> lsn.get());
+            when(statement.executeQuery(anyString())).thenReturn(rs);
+            return statement;
+        });
+    }
+
+    private ReadReplicaDataSource start(Duration maxStaleness) {
+        routing = new ReadReplicaDataSource(primary, replica, maxStaleness, Duration.ofMillis(20));
+        await(() -> routing.staleness() != null);
+        return routing;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.onSpinWait();
+        }
+    }
+
+    /** The physical connection a transaction named {@code txName} would run on. */
+    private Connection connectionFor(String txName, boolean readOnly) throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionName(txName);
+        try {
+            Connection connection = routing.getConnection();
+            connection.setReadOnly(readOnly);
+            return ((ConnectionProxy) connection).getTargetConnection();
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionName(null);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (routing != null) routing.close();
+    }
+
+    @Test
+    void readOnlyServiceTransactionsUseAFreshReplica() throws Exception {
+        start(Duration.ofSeconds(10));
+
+        assertSame(replicaConnection, connectionFor(SERVICE_TX, true));
+        assertSame(primaryConnection, connectionFor(SERVICE_TX, false));
+        // Spring Data's own read-only transactions around inherited repository methods
+        assertSame(primaryConnection, connectionFor("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findAll", true));
+        assertSame(primaryConnection, ReadReplicaDataSource.onPrimary(() -> {
+            try {
+                return connectionFor(SERVICE_TX, true);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+
+        assertEquals(1, routing.routed(ReadReplicaDataSource.Route.REPLICA));
+        assertEquals(1, routing.routed(ReadReplicaDataSource.Route.PINNED));
+    }
+
+    @Test
+    void aReplicaStuckBehindThePrimaryGoesStale() throws Exception {
+        start(Duration.ofMillis(200));
+        assertSame(replicaConnection, connectionFor(SERVICE_TX, true));
+
+        primaryLsn.set("1/0");
+        await(() -> routing.staleness().toMillis() > 200);
+        assertSame(primaryConnection, connectionFor(SERVICE_TX, true));
+        assertEquals(1, routing.routed(ReadReplicaDataSource.Route.STALE));
+
+        replayLsn.set("1/0");
+        await(() -> routing.staleness().toMillis() < 200);
+        assertSame(replicaConnection, connectionFor(SERVICE_TX, true));
+    }
+
+    @Test
+    void anUnreachableReplicaFallsBackToThePrimary() throws Exception {
+        start(Duration.ofSeconds(10));
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertSame(primaryConnection, connectionFor(SERVICE_TX, true));
+        assertEquals(1, routing.routed(ReadReplicaDataSource.Route.DOWN));
+    }
+
+    @Test
+    void aServerNotInRecoveryIsAlwaysFresh() throws Exception {
+        replayLsn.set(null);
+        start(Duration.ofMillis(200));
+        primaryLsn.set("5/0");
+
+        Thread.sleep(300);
+        assertTrue(routing.staleness().toMillis() < 200);
+        assertSame(replicaConnection, connectionFor(SERVICE_TX, true));
+    }
+
+    @Test
+    void otherCredentialsReadFromThePrimary() throws Exception {
+        Connection asAdmin = mock(Connection.class);
+        when(primary.getConnection("admin", "secret")).thenReturn(asAdmin);
+        start(Duration.ofSeconds(10));
+
+        TransactionSynchronizationManager.setCurrentTransactionName(SERVICE_TX);
+        try {
+            Connection connection = routing.getConnection("admin", "secret");
+            connection.setReadOnly(true);
+            assertSame(asAdmin, ((ConnectionProxy) connection).getTargetConnection());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionName(null);
+        }
+    }
+
+    @Test
+    void theConnectionLimitCoversBothPools() {
+        when(primary.getMaximumPoolSize()).thenReturn(10);
+        when(replica.getMaximumPoolSize()).thenReturn(6);
+        start(Duration.ofSeconds(10));
+
+        assertEquals(16, VirtualThreadConfiguration.poolSize(routing));
+    }
+
+    @Test
+    void theCheckMustRunMoreOftenThanTheBound() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReadReplicaDataSource(primary, replica, Duration.ofMillis(10), Duration.ofMillis(20)));
+    }
+}
@@ -0,0 +1,54 @@
+package com.borsibaar.backend.configs;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class StatementCountingDataSourceTest {
+
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final DataSource counting = new StatementCountingDataSource(target);
+
+    StatementCountingDataSourceTest() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenAnswer(i -> mock(Statement.class));
+        when(connection.prepareStatement(anyString())).thenAnswer(i -> mock(PreparedStatement.class));
+    }
+
+    @Test
+    void batchesAreLabelledWithTheirSql() throws Exception {
+        try (StatementTally tally = StatementTally.capturing()) {
+            Connection con = counting.getConnection();
+
+            PreparedStatement insert = con.prepareStatement("insert into t values (?)");
+            insert.addBatch();
+            insert.addBatch();
+            insert.executeBatch();
+
+            Statement plain = con.createStatement();
+            plain.addBatch("update a set x = 1");
+            plain.addBatch("update b set y = 2");
+            plain.executeBatch();
+            plain.executeBatch(); // nothing queued since the last one
+            plain.addBatch("delete from c");
+            plain.clearBatch();
+            plain.executeQuery("select 1");
+
+            assertEquals(List.of(
+                    "insert into t values (?) [batch]",
+                    "update a set x = 1; update b set y = 2 [batch of 2]",
+                    "<batch>",
+                    "select 1"), tally.sql());
+            assertEquals(4, tally.statements());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.borsibaar.backend.entity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void convertsFromDecimalsRoundingHalfUp() {
+        assertEquals(655L, Money.parse("6.55").cents());
+        assertEquals(700L, Money.parse("7").cents());
+        assertEquals(656L, Money.parse("6.555").cents());
+        assertEquals(-656L, Money.parse("-6.555").cents());
+        assertEquals(new BigDecimal("6.55"), Money.ofCents(655).toBigDecimal());
+        assertEquals("-0.05", Money.ofCents(-5).toString());
+    }
+
+    @Test
+    void arithmeticIsExact() {
+        // 0.1 + 0.2 in doubles is 0.30000000000000004
+        assertEquals(Money.parse("0.30"), Money.parse("0.10").plus(Money.parse("0.20")));
+        assertEquals(Money.parse("11.28"), Money.parse("5.64").times(2));
+        assertEquals(Money.parse("6.60"), Money.parse("6.00").times(110, 100));
+        assertEquals(Money.parse("5.64"), Money.parse("6.00").times(94, 100));
+        assertEquals(Money.parse("3.33"), Money.parse("10.00").divide(3));
+        assertEquals(Money.parse("4.00"), Money.parse("3.50").clamp(Money.parse("4.00"), Money.parse("9.00")));
+    }
+
+    @Test
+    void roundDivTiesAwayFromZero() {
+        assertEquals(3, Money.roundDiv(5, 2));
+        assertEquals(-3, Money.roundDiv(-5, 2));
+        assertEquals(2, Money.roundDiv(7, 4));
+        assertEquals(-2, Money.roundDiv(-7, 4));
+        assertEquals(1, Money.roundDiv(4, 4));
+    }
+
+    @Test
+    void jsonIsANumberWithTwoDecimals() throws Exception {
+        assertEquals("5.00", mapper.writeValueAsString(Money.ofCents(500)));
+        assertEquals(Money.ofCents(550), mapper.readValue("5.5", Money.class));
+        assertEquals(Money.ofCents(550), mapper.readValue("\"5.50\"", Money.class));
+    }
+
+    @Test
+    void converterStoresTwoDecimals() {
+        MoneyConverter converter = new MoneyConverter();
+        assertEquals(new BigDecimal("4.20"), converter.convertToDatabaseColumn(Money.ofCents(420)));
+        assertEquals(Money.ofCents(420), converter.convertToEntityAttribute(new BigDecimal("4.2000")));
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+}
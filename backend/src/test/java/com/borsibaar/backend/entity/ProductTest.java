@@ -3,7 +3,6 @@ package com.borsibaar.backend.entity;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -44,8 +43,8 @@ class ProductTest {
 
     @Test
     void getPrice() {
-        Product product = Product.builder().price(BigDecimal.valueOf(23)).build();
-        assertEquals(BigDecimal.valueOf(23), product.getPrice());
+        Product product = Product.builder().price(Money.ofCents(2300)).build();
+        assertEquals(Money.ofCents(2300), product.getPrice());
     }
 
     @Test
@@ -0,0 +1,182 @@
+package com.borsibaar.backend.repository;
+
+import com.borsibaar.backend.entity.PriceChange;
+import com.borsibaar.backend.entity.PriceReason;
+import com.borsibaar.backend.support.NoOpTransactionManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PriceTickStoreTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 10, 20, 0);
+
+    @TempDir
+    Path dir;
+
+    private PriceTickStore open() throws Exception {
+        return open(new HistoryStub(List.of(), -1));
+    }
+
+    private PriceTickStore open(JdbcTemplate history) throws Exception {
+        PriceTickStore store = new PriceTickStore(history, NoOpTransactionManager.template(), null, dir, 4);
+        store.open();
+        return store;
+    }
+
+    /** One price_history row, as the seeding query selects it. */
+    private record HistoryRow(long productId, int ownerId, int minute, String oldPrice, String newPrice, String reason) {
+    }
+
+    /** Hands the seeding query its rows, failing before the {@code failAt}-th one if it is not -1. */
+    private static final class HistoryStub extends JdbcTemplate {
+        final List<HistoryRow> rows;
+        final int failAt;
+
+        HistoryStub(List<HistoryRow> rows, int failAt) {
+            this.rows = rows;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (i == failAt) throw new DataAccessResourceFailureException("connection reset");
+                try {
+                    rch.processRow(resultSet(rows.get(i)));
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        private static ResultSet resultSet(HistoryRow row) throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(row.productId());
+            when(rs.getInt(2)).thenReturn(row.ownerId());
+            when(rs.getTimestamp(3)).thenReturn(Timestamp.valueOf(T0.plusMinutes(row.minute())));
+            when(rs.getBigDecimal(4)).thenReturn(new BigDecimal(row.oldPrice()));
+            when(rs.getBigDecimal(5)).thenReturn(new BigDecimal(row.newPrice()));
+            when(rs.getString(6)).thenReturn(row.reason());
+            return rs;
+        }
+    }
+
+    private static final List<HistoryRow> HISTORY = List.of(
+            new HistoryRow(1L, 7, 0, "8.00", "8.80", PriceReason.ORDER_BUMP.describe(0)),
+            new HistoryRow(2L, 9, 1, "5.00", "4.70", PriceReason.ORDER_DROP.describe(0)),
+            new HistoryRow(1L, 7, 2, "8.80", "8.50", PriceReason.DECAY.describe(15)));
+
+    private static PriceChange tick(long productId, int ownerId, int minute, long oldCents, long newCents) {
+        return new PriceChange(productId, ownerId, oldCents, newCents, T0.plusMinutes(minute), PriceReason.DECAY, minute);
+    }
+
+    private static List<long[]> readAll(PriceTickStore store, long productId, LocalDateTime from, LocalDateTime to) {
+        List<long[]> out = new ArrayList<>();
+        store.read(productId, from, to, (id, at, oldCents, newCents, reason, detail) ->
+                out.add(new long[]{id, oldCents, newCents, detail}));
+        return out;
+    }
+
+    @Test
+    void read_returnsOnlyTheProductsTicksWithinTheRange() throws Exception {
+        PriceTickStore store = open();
+        List<PriceChange> ticks = new ArrayList<>();
+        for (int m = 0; m < 10; m++) {
+            ticks.add(tick(1L, 7, m, 800 - m, 799 - m));
+            ticks.add(tick(2L, 7, m, 500, 499));
+        }
+        store.append(ticks);
+
+        assertEquals(10, readAll(store, 1L, null, null).size());
+
+        List<long[]> range = readAll(store, 1L, T0.plusMinutes(3), T0.plusMinutes(6));
+        assertEquals(3, range.size());
+        assertArrayEquals(new long[]{1L, 797, 796, 3}, range.get(0));
+        assertEquals(7, store.ownerOf(1L));
+        assertFalse(store.contains(3L));
+    }
+
+    @Test
+    void reopen_rebuildsTheIndexFromSegments() throws Exception {
+        PriceTickStore store = open();
+        for (int m = 0; m < 9; m++) {
+            store.append(List.of(tick(1L, 7, m, 900, 895)));
+        }
+        store.close();
+
+        PriceTickStore reopened = open();
+        assertEquals(9, readAll(reopened, 1L, null, null).size());
+        reopened.append(List.of(tick(1L, 7, 9, 895, 890)));
+        assertEquals(10, readAll(reopened, 1L, null, null).size());
+    }
+
+    @Test
+    void pagedRead_resumesAfterTheLastIndex() throws Exception {
+        PriceTickStore store = open();
+        for (int m = 0; m < 10; m++) {
+            store.append(List.of(tick(1L, 7, m, 800 - m, 799 - m)));
+        }
+
+        List<Long> details = new ArrayList<>();
+        int after = -1;
+        int pages = 0;
+        while (true) {
+            int last = store.read(1L, T0.plusMinutes(2), null, after, 3,
+                    (id, at, oldCents, newCents, reason, detail) -> details.add((long) detail));
+            if (last < 0) break;
+            after = last;
+            pages++;
+        }
+
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), details);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void open_seedsFromPriceHistoryOnce() throws Exception {
+        PriceTickStore store = open(new HistoryStub(HISTORY, -1));
+
+        List<long[]> beer = new ArrayList<>();
+        store.read(1L, null, null, (id, at, oldCents, newCents, reason, detail) ->
+                beer.add(new long[]{at.getMinute(), oldCents, newCents, reason.code(), detail}));
+        assertEquals(2, beer.size());
+        assertArrayEquals(new long[]{0, 800, 880, PriceReason.ORDER_BUMP.code(), 0}, beer.get(0));
+        assertArrayEquals(new long[]{2, 880, 850, PriceReason.DECAY.code(), 15}, beer.get(1));
+        assertEquals(9, store.ownerOf(2L));
+        store.close();
+
+        // seeded already: history is not read again
+        PriceTickStore reopened = open(new HistoryStub(HISTORY, 0));
+        assertEquals(2, readAll(reopened, 1L, null, null).size());
+        assertEquals(1, readAll(reopened, 2L, null, null).size());
+    }
+
+    @Test
+    void open_failsOnAPartialSeedAndRedoesItNextTime() throws Exception {
+        Exception failure = assertThrows(IllegalStateException.class, () -> open(new HistoryStub(HISTORY, 2)));
+        assertInstanceOf(DataAccessResourceFailureException.class, failure.getCause());
+        assertFalse(Files.exists(dir.resolve(PriceTickStore.SEEDED_MARKER)));
+
+        PriceTickStore store = open(new HistoryStub(HISTORY, -1));
+        assertEquals(2, readAll(store, 1L, null, null).size(), "the half-written seed is replaced, not added to");
+        assertEquals(1, readAll(store, 2L, null, null).size());
+    }
+}
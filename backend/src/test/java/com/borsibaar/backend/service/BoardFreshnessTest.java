@@ -0,0 +1,63 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.BoardDto;
+import com.borsibaar.backend.dtos.OrderDto;
+import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.support.BarFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** The board's last move and prediction follow the price book, not the write-behind history. */
+@SpringBootTest
+class BoardFreshnessTest {
+
+    @Autowired private BoardService boardService;
+    @Autowired private OrderService orderService;
+    @Autowired private PriceFlushService priceFlushService;
+    @Autowired private BarFixture bar;
+
+    @Test
+    void boardReadBetweenAnOrderAndTheFlush_showsTheNewMove() {
+        User owner = bar.owner("Fresh");
+        Category beer = bar.category(owner, "Beer");
+        Product lager = bar.product(beer, "Lager");
+        priceFlushService.flush();
+        long before = boardService.board(owner, null).getVersion();
+
+        orderService.save(OrderDto.builder()
+                .items(List.of(OrderItemDto.builder()
+                        .quantity(1)
+                        .product(ProductDTO.builder().id(lager.getId()).build())
+                        .build()))
+                .build(), owner);
+
+        // 6.00 drops 6% on the sale; price_history has nothing for it until the flush
+        BoardDto delta = boardService.board(owner, before);
+        assertFalse(delta.isFull());
+        ProductDTO moved = delta.getProducts().getFirst();
+        assertEquals(Money.parse("5.64"), moved.getPrice());
+        assertEquals(Money.parse("-0.36"), moved.getPriceChange());
+        assertFalse(moved.getPriceUp());
+        assertEquals(Money.parse("5.28"), moved.getPredictedPrice());
+
+        priceFlushService.flush();
+
+        // the write bumps the board once more, and the history now carries the same move
+        BoardDto afterFlush = boardService.board(owner, delta.getVersion());
+        assertTrue(afterFlush.getVersion() > delta.getVersion());
+        ProductDTO flushed = afterFlush.getProducts().getFirst();
+        assertEquals(moved.getPrice(), flushed.getPrice());
+        assertEquals(moved.getPriceChange(), flushed.getPriceChange());
+        assertEquals(moved.getPredictedPrice(), flushed.getPredictedPrice());
+    }
+}
@@ -0,0 +1,89 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BoardSnapshotsTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final BoardVersions versions = new BoardVersions(new PriceBook(null));
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final BoardSnapshots snapshots = new BoardSnapshots(productService, versions, new ObjectMapper(), meters);
+
+    {
+        ReflectionTestUtils.setField(snapshots, "maxOwners", 2);
+        ReflectionTestUtils.setField(snapshots, "gzipEnabled", true);
+        when(productService.findForUser(any())).thenAnswer(inv -> List.of(ProductDTO.builder()
+                .id(1L).name("Mojito").price(Money.parse("5.00")).build()));
+    }
+
+    private static User owner(int id) {
+        return User.builder().id(id).build();
+    }
+
+    private double requests(String result) {
+        return meters.counter("board.snapshot.requests", "result", result).count();
+    }
+
+    @Test
+    void boardIsSerializedOncePerVersion() throws Exception {
+        User owner = owner(1);
+        BoardSnapshots.Snapshot first = snapshots.get(owner);
+        assertSame(first, snapshots.get(owner));
+        verify(productService, times(1)).findForUser(any());
+        assertEquals(1, requests("miss"));
+        assertEquals(1, requests("hit"));
+
+        versions.changed(1, 1L);
+        BoardSnapshots.Snapshot second = snapshots.get(owner);
+        assertNotSame(first, second);
+        assertEquals(versions.version(1), second.version());
+        verify(productService, times(2)).findForUser(any());
+        assertEquals(2, meters.timer("board.snapshot.rebuild").count());
+
+        String json = new String(second.json());
+        assertTrue(json.startsWith("[{\"id\":1,\"name\":\"Mojito\""), json);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(second.gzip()))) {
+            assertEquals(json, new String(in.readAllBytes()));
+        }
+        assertSame(second.gzip(), second.gzip());
+    }
+
+    @Test
+    void leastRecentlyReadOwnerIsEvicted() {
+        snapshots.get(owner(1));
+        snapshots.get(owner(2));
+        snapshots.get(owner(1));
+        snapshots.get(owner(3)); // evicts 2
+
+        assertEquals(1, meters.counter("board.snapshot.evictions").count());
+        assertEquals(2.0, meters.get("board.snapshot.owners").gauge().value());
+
+        snapshots.get(owner(1));
+        assertEquals(2, requests("hit"));
+        snapshots.get(owner(2));
+        assertEquals(4, requests("miss"));
+    }
+
+    @Test
+    void gzipOnlyWhenAcceptedAndEnabled() {
+        assertTrue(snapshots.useGzip("gzip, deflate, br"));
+        assertFalse(snapshots.useGzip("identity"));
+        assertFalse(snapshots.useGzip(null));
+        ReflectionTestUtils.setField(snapshots, "gzipEnabled", false);
+        assertFalse(snapshots.useGzip("gzip"));
+    }
+}
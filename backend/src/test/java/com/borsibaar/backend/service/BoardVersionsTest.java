@@ -0,0 +1,65 @@
+package com.borsibaar.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardVersionsTest {
+
+    private final BoardVersions versions = new BoardVersions(new PriceBook(null));
+
+    @Test
+    void deltaHoldsOnlyWhatChangedSinceTheClientsVersion() {
+        long start = versions.version(1);
+        versions.changed(1, 10L);
+        long seen = versions.version(1);
+        versions.changed(1, 11L);
+        versions.removed(1, 10L);
+        versions.changed(2, 20L); // another bar
+
+        BoardVersions.Delta fromStart = versions.since(1, start);
+        assertFalse(fromStart.full());
+        assertEquals(List.of(11L), fromStart.changed());
+        assertEquals(List.of(10L), fromStart.removed());
+
+        BoardVersions.Delta fromSeen = versions.since(1, seen);
+        assertEquals(List.of(11L), fromSeen.changed());
+        assertEquals(List.of(10L), fromSeen.removed());
+
+        BoardVersions.Delta current = versions.since(1, versions.version(1));
+        assertFalse(current.full());
+        assertTrue(current.changed().isEmpty() && current.removed().isEmpty());
+        assertTrue(versions.version(1) > seen);
+    }
+
+    @Test
+    void unknownOrForgottenVersionsGetTheFullBoard() {
+        versions.changed(1, 10L);
+        long before = versions.version(1);
+
+        assertTrue(versions.since(1, null).full());
+        assertTrue(versions.since(1, before + 1_000).full(), "a version from the future is from another run");
+        assertTrue(versions.since(1, 42L).full(), "a version from before this boot");
+
+        versions.resync(1);
+        assertTrue(versions.since(1, before).full());
+        assertFalse(versions.since(1, versions.version(1)).full());
+    }
+
+    @Test
+    void waiterWakesOnTheNextBumpOfItsOwnerOnly() {
+        long since = versions.version(1);
+        CompletableFuture<Long> waiter = versions.awaitChange(1, since);
+        assertFalse(waiter.isDone());
+
+        versions.changed(2, 20L);
+        assertFalse(waiter.isDone());
+
+        versions.changed(1, 10L);
+        assertEquals(versions.version(1), waiter.join());
+        assertTrue(versions.awaitChange(1, since).isDone(), "already past the version");
+    }
+}
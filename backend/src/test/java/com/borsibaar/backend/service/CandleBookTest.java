@@ -0,0 +1,104 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PriceReason;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.support.SettableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandleBookTest {
+
+    private final SettableClock clock = new SettableClock();
+    private final PriceBook book = new PriceBook(null, clock);
+    private final CandleBook candles = new CandleBook(null, book);
+
+    private final Product product = Product.builder()
+            .id(1L)
+            .price(Money.parse("5.00"))
+            .minPrice(Money.parse("1.00"))
+            .maxPrice(Money.parse("9.00"))
+            .salesCount(0L)
+            .category(Category.builder().name("Beer").build())
+            .build();
+
+    private void sellAndMove(LocalDateTime at, int qty, long newCents) {
+        clock.set(at);
+        book.update(product, e -> {
+            e.sell(qty);
+            return e.reprice(newCents, PriceReason.ORDER_BUMP, 0);
+        });
+    }
+
+    private List<CandleBook.Candle> read(CandleBook.Interval interval, LocalDateTime from, LocalDateTime to) {
+        List<CandleBook.Candle> out = new ArrayList<>();
+        candles.read(1L, interval, from, to, out::add);
+        return out;
+    }
+
+    @Test
+    void updatesFoldIntoOhlcvBuckets() {
+        LocalDateTime t0 = LocalDateTime.of(2025, 1, 1, 20, 0, 10);
+        sellAndMove(t0, 2, 550L);
+        sellAndMove(t0.plusSeconds(20), 1, 450L);
+        sellAndMove(t0.plusSeconds(30), 3, 480L);
+        sellAndMove(t0.plusMinutes(1), 1, 520L);
+
+        List<CandleBook.Candle> minutes = read(CandleBook.Interval.ONE_MINUTE, null, null);
+        assertEquals(2, minutes.size());
+        CandleBook.Candle first = minutes.get(0);
+        assertEquals(LocalDateTime.of(2025, 1, 1, 20, 0), first.start());
+        assertEquals(500L, first.open());
+        assertEquals(550L, first.high());
+        assertEquals(450L, first.low());
+        assertEquals(480L, first.close());
+        assertEquals(6L, first.volume());
+        assertEquals(480L, minutes.get(1).open());
+        assertEquals(520L, minutes.get(1).close());
+
+        List<CandleBook.Candle> hours = read(CandleBook.Interval.ONE_HOUR, null, null);
+        assertEquals(1, hours.size());
+        assertEquals(7L, hours.get(0).volume());
+    }
+
+    @Test
+    void read_returnsOnlyBucketsInRange() {
+        LocalDateTime t0 = LocalDateTime.of(2025, 1, 1, 20, 0);
+        for (int i = 0; i < 10; i++) {
+            sellAndMove(t0.plusMinutes(i), 1, 500L + i);
+        }
+
+        List<CandleBook.Candle> range = read(CandleBook.Interval.ONE_MINUTE, t0.plusMinutes(3), t0.plusMinutes(6));
+        assertEquals(3, range.size());
+        assertEquals(t0.plusMinutes(3), range.get(0).start());
+        assertEquals(t0.plusMinutes(5), range.get(2).start());
+    }
+
+    @Test
+    void series_dropsOldestBucketOnceFull() {
+        LocalDateTime t0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+        // one more day of minutes than the 1m ring keeps
+        for (int i = 0; i < 1_440 + 5; i++) {
+            sellAndMove(t0.plusMinutes(i), 1, 400L + (i % 100));
+        }
+
+        List<CandleBook.Candle> minutes = read(CandleBook.Interval.ONE_MINUTE, null, null);
+        assertEquals(1_440, minutes.size());
+        assertEquals(t0.plusMinutes(5), minutes.get(0).start());
+        assertEquals(t0.plusMinutes(1_444), minutes.get(minutes.size() - 1).start());
+    }
+
+    @Test
+    void forget_dropsTheProductsSeries() {
+        sellAndMove(LocalDateTime.of(2025, 1, 1, 20, 0), 1, 550L);
+        book.forget(1L);
+        assertTrue(read(CandleBook.Interval.ONE_MINUTE, null, null).isEmpty());
+        assertFalse(candles.productsOf(null).iterator().hasNext());
+    }
+}
@@ -0,0 +1,84 @@
+package com.borsibaar.backend.service;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    // 256-bit test key, base64
+    static final String SECRET = "dGhpcy1pcy1hLXRlc3Qta2V5LWZvci1ib3JzaWJhYXItand0cy0xMjM0NTY3OA==";
+
+    static JwtService jwtService(long expirationMs, int cacheSize) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(service, "verifiedCacheSize", cacheSize);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    @Test
+    void verifiedTokenCarriesSubjectAndExpiryAndIsRemembered() {
+        JwtService service = jwtService(60_000L, 10);
+        String token = service.generateTokenForUser("a@b.ee");
+
+        JwtService.VerifiedToken verified = service.verify(token);
+        assertEquals("a@b.ee", verified.subject());
+        assertTrue(verified.expiresAt() > System.currentTimeMillis());
+        assertTrue(verified.issuedAt() <= System.currentTimeMillis());
+
+        assertSame(verified, service.verify(token));
+        assertEquals(1, service.verifiedCount());
+    }
+
+    @Test
+    void tamperedOrForeignTokensAreRejectedAndNotRemembered() {
+        JwtService service = jwtService(60_000L, 10);
+        String token = service.generateTokenForUser("a@b.ee");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> service.verify(tampered));
+        assertThrows(JwtException.class, () -> service.verify("not.a.jwt"));
+        assertEquals(0, service.verifiedCount());
+    }
+
+    @Test
+    void expiredTokensFailEveryTime() {
+        JwtService service = jwtService(-1_000L, 10);
+        String token = service.generateTokenForUser("a@b.ee");
+
+        assertThrows(ExpiredJwtException.class, () -> service.verify(token));
+        assertThrows(ExpiredJwtException.class, () -> service.verify(token));
+    }
+
+    @Test
+    void cacheStaysBounded() {
+        JwtService service = jwtService(60_000L, 3);
+        for (int i = 0; i < 10; i++) {
+            service.verify(service.generateTokenForUser("u" + i + "@b.ee"));
+            assertTrue(service.verifiedCount() <= 3);
+        }
+    }
+
+    @Test
+    void aFullCacheDropsTheOldestToken() {
+        JwtService service = jwtService(60_000L, 3);
+        String first = service.generateTokenForUser("u0@b.ee");
+        service.verify(first);
+        JwtService.VerifiedToken[] live = new JwtService.VerifiedToken[3];
+        String[] tokens = new String[3];
+        for (int i = 0; i < 3; i++) {
+            tokens[i] = service.generateTokenForUser("u" + (i + 1) + "@b.ee");
+            live[i] = service.verify(tokens[i]);
+        }
+
+        assertEquals(3, service.verifiedCount());
+        for (int i = 0; i < 3; i++) {
+            assertSame(live[i], service.verify(tokens[i]), "token " + (i + 1) + " was evicted");
+        }
+    }
+}
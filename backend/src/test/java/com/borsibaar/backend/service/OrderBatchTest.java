@@ -0,0 +1,123 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.OrderBatchResultDto;
+import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.dtos.QueuedOrderDto;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.Order;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.OrderRepository;
+import com.borsibaar.backend.support.BarFixture;
+import com.borsibaar.backend.support.RoundTripCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replaying a tablet's offline queue through {@link OrderService#saveBatch}: per-order results,
+ * prices moved in the order the sales happened, and round trips that do not grow per order.
+ */
+@SpringBootTest
+class OrderBatchTest {
+
+    private static final int ORDERS = 200;
+
+    @Autowired private OrderService orderService;
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private PriceBook priceBook;
+    @Autowired private BarFixture bar;
+
+    private User user;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        user = bar.owner("Tablet");
+        product = bar.product(bar.category(user, "Beer"), "Lager", "6.00", "1.00", "9.00");
+    }
+
+    @Test
+    void replaysQueueInOneGo() {
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(2);
+        List<QueuedOrderDto> queued = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            queued.add(queued("t-" + i, hour.plusSeconds(i), product.getId()));
+        }
+        Collections.shuffle(queued, new Random(7)); // the tablet may send them in any order
+        queued.add(5, queued("empty", hour, null));
+        queued.add(9, queued("unknown", hour, Long.MAX_VALUE));
+
+        RoundTripCounter.Counted<List<OrderBatchResultDto>> counted =
+                RoundTripCounter.count(() -> orderService.saveBatch(queued, user));
+        List<OrderBatchResultDto> results = counted.result();
+
+        assertEquals(queued.size(), results.size());
+        for (int i = 0; i < queued.size(); i++) {
+            assertEquals(queued.get(i).getClientId(), results.get(i).getClientId());
+        }
+        assertEquals(OrderBatchResultDto.Status.REJECTED, results.get(5).getStatus());
+        assertEquals(OrderBatchResultDto.Status.REJECTED, results.get(9).getStatus());
+        assertEquals("Product not found", results.get(9).getError());
+        assertEquals(ORDERS, results.stream().filter(r -> r.getStatus() == OrderBatchResultDto.Status.CREATED).count());
+
+        // each sale of a non-cocktail moves the price down, so the earliest order paid the most
+        List<Order> stored = orderRepository.findAllById(results.stream()
+                .filter(r -> r.getOrderId() != null).map(OrderBatchResultDto::getOrderId).toList());
+        stored.sort(Comparator.comparing(Order::getCreatedAt));
+        assertEquals(hour, stored.getFirst().getCreatedAt());
+        assertEquals(Money.parse("5.64"), stored.getFirst().getTotal()); // priced after its own 6% drop, as a live order is
+        for (int i = 1; i < stored.size(); i++) {
+            assertTrue(stored.get(i).getTotal().compareTo(stored.get(i - 1).getTotal()) <= 0, "order " + i + " priced out of sequence");
+        }
+
+        // 1 product lookup, 1 revenue upsert, batched inserts and id pool refills; 200 single posts take ~1000
+        assertTrue(counted.roundTrips() <= 30, "round trips: " + counted.roundTrips());
+    }
+
+    @Test
+    void resentBatchIsNotTakenTwice() {
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(1);
+        List<QueuedOrderDto> batch = List.of(
+                queued("a", hour, product.getId()),
+                queued("b", hour.plusSeconds(1), product.getId()),
+                queued("a", hour.plusSeconds(2), product.getId())); // the same order queued twice
+
+        List<OrderBatchResultDto> first = orderService.saveBatch(batch, user);
+        long priceAfterFirst = priceBook.quote(product).priceCents();
+        // the tablet lost the response and sends the whole batch again
+        List<OrderBatchResultDto> second = orderService.saveBatch(batch, user);
+
+        assertEquals(first.get(0).getOrderId(), first.get(2).getOrderId());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(OrderBatchResultDto.Status.CREATED, second.get(i).getStatus());
+            assertEquals(first.get(i).getOrderId(), second.get(i).getOrderId());
+            assertEquals(first.get(i).getTotal(), second.get(i).getTotal());
+        }
+        assertEquals(2, orderRepository.findByUser(user).size());
+        assertEquals(priceAfterFirst, priceBook.quote(product).priceCents(), "a replayed order moved the price again");
+    }
+
+    private static QueuedOrderDto queued(String clientId, LocalDateTime at, Long productId) {
+        return QueuedOrderDto.builder()
+                .clientId(clientId)
+                .createdAt(at)
+                .items(productId == null ? List.of() : List.of(OrderItemDto.builder()
+                        .quantity(1)
+                        .product(ProductDTO.builder().id(productId).build())
+                        .build()))
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.OrderDto;
+import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.OrderPageDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.support.BarFixture;
+import com.borsibaar.backend.support.RoundTripCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Order pages cost the same number of queries however many orders, items and products they hold. */
+@SpringBootTest
+class OrderPageTest {
+
+    private static final int ORDERS = 23;
+    private static final int PAGE = 10;
+
+    @Autowired private OrderService orderService;
+    @Autowired private BarFixture bar;
+
+    @Test
+    void pages_walkNewestFirstWithConstantQueries() {
+        User user = bar.owner("Pager");
+        Category category = bar.category(user, "Cider");
+        List<Long> productIds = bar.products(category, "Cider", 5).stream().map(Product::getId).toList();
+
+        List<Long> created = new ArrayList<>();
+        for (int o = 0; o < ORDERS; o++) {
+            // up to three lines per order over different products
+            List<OrderItemDto> items = new ArrayList<>();
+            for (int l = 0; l <= o % 3; l++) {
+                items.add(OrderItemDto.builder()
+                        .quantity(1)
+                        .product(ProductDTO.builder().id(productIds.get((o + l) % productIds.size())).build())
+                        .build());
+            }
+            created.add(orderService.save(OrderDto.builder().items(items).build(), user).getId());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        Set<Integer> roundTrips = new HashSet<>();
+        String cursor = null;
+        do {
+            String at = cursor;
+            RoundTripCounter.Counted<OrderPageDto> page =
+                    RoundTripCounter.count(() -> orderService.getOrderPage(user, null, null, at, PAGE));
+            for (OrderDto order : page.result().getItems()) {
+                seen.add(order.getId());
+                assertEquals(created.indexOf(order.getId()) % 3 + 1, order.getItems().size());
+                assertNotNull(order.getItems().get(0).getProduct().getPrice());
+            }
+            roundTrips.add(page.roundTrips());
+            cursor = page.result().getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(created.reversed(), seen);
+        // orders + items with products + recent price history, on every page
+        assertEquals(Set.of(3), roundTrips);
+    }
+}
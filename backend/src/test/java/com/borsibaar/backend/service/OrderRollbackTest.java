@@ -0,0 +1,95 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.OrderDto;
+import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.Order;
+import com.borsibaar.backend.entity.PendingFlush;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.OrderItemRepository;
+import com.borsibaar.backend.repository.OrderRepository;
+import com.borsibaar.backend.repository.ProductRepository;
+import com.borsibaar.backend.support.NoOpTransactionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/** Price book changes made by an order only stand once the order's transaction commits. */
+class OrderRollbackTest {
+
+    private final OrderRepository orderRepo = mock(OrderRepository.class);
+    private final ProductRepository productRepo = mock(ProductRepository.class);
+    private final PriceBook priceBook = new PriceBook(null);
+    private final List<PriceBook.Update> heard = new ArrayList<>();
+    private final TransactionTemplate tx = NoOpTransactionManager.template();
+
+    private final Product product = Product.builder()
+            .id(1L)
+            .price(Money.parse("6.00"))
+            .minPrice(Money.parse("4.00"))
+            .maxPrice(Money.parse("9.00"))
+            .salesCount(10L)
+            .category(Category.builder().name("Beer").build())
+            .build();
+
+    private final OrderService orderService = new OrderService(orderRepo, mock(OrderItemRepository.class), productRepo,
+            priceBook, mock(ProductService.class), mock(RevenueService.class), new SimpleMeterRegistry());
+
+    OrderRollbackTest() {
+        priceBook.track(product);
+        priceBook.addListener(heard::add);
+        when(productRepo.findAllWithCategoryByIdIn(any())).thenReturn(List.of(product));
+    }
+
+    private static OrderDto order(int quantity) {
+        return OrderDto.builder()
+                .items(List.of(OrderItemDto.builder()
+                        .quantity(quantity)
+                        .product(ProductDTO.builder().id(1L).build())
+                        .build()))
+                .build();
+    }
+
+    @Test
+    void aFailedSave_leavesTheQuoteAsItWas() {
+        PriceBook.Quote before = priceBook.quote(1L);
+        when(orderRepo.save(any())).thenThrow(new DataIntegrityViolationException("boom"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> tx.executeWithoutResult(s -> orderService.save(order(2), new User())));
+
+        assertEquals(before, priceBook.quote(1L));
+        assertTrue(heard.isEmpty());
+        assertTrue(priceBook.drain().isEmpty());
+    }
+
+    @Test
+    void aCommittedSave_isHeardAndFlushedAfterCommit() {
+        when(orderRepo.save(any())).thenAnswer(i -> i.getArgument(0, Order.class));
+
+        tx.executeWithoutResult(s -> {
+            orderService.save(order(2), new User());
+            // priced on by the next order already, but not flushed or announced before the commit
+            assertEquals(12L, priceBook.quote(1L).salesCount());
+            assertTrue(priceBook.drain().isEmpty());
+            assertTrue(heard.isEmpty());
+        });
+
+        assertEquals(1, heard.size());
+        List<PendingFlush> pending = priceBook.drain();
+        assertEquals(1, pending.size());
+        assertEquals(2L, pending.getFirst().salesDelta());
+        assertEquals(priceBook.quote(1L).priceCents(), pending.getFirst().priceCents());
+    }
+}
@@ -0,0 +1,68 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.OrderDto;
+import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.support.BarFixture;
+import com.borsibaar.backend.support.RoundTripCounter;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips for inserting a 10-line order, with and without JDBC batching.
+ * The unbatched run matches what the old IDENTITY ids forced: one INSERT per line.
+ */
+@SpringBootTest
+class OrderRoundTripsTest {
+
+    private static final int LINES = 10;
+
+    @Autowired private OrderService orderService;
+    @Autowired private EntityManager entityManager;
+    @Autowired private TransactionTemplate tx;
+    @Autowired private BarFixture bar;
+
+    private User user;
+    private OrderDto order;
+
+    @BeforeEach
+    void setUp() {
+        user = bar.owner("Bench");
+        Category category = bar.category(user, "Wine");
+
+        List<OrderItemDto> items = new ArrayList<>();
+        for (Product p : bar.products(category, "Wine", LINES)) {
+            items.add(OrderItemDto.builder().quantity(1).product(ProductDTO.builder().id(p.getId()).build()).build());
+        }
+        order = OrderDto.builder().items(items).build();
+
+        // warm up the id pools so neither run pays for the first sequence fetch
+        orderService.save(order, user);
+    }
+
+    @Test
+    void tenLineOrder_insertsItemsInOneBatch() {
+        int unbatched = RoundTripCounter.count(() -> tx.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+            orderService.save(order, user);
+        }));
+        int batched = RoundTripCounter.count(() -> tx.executeWithoutResult(status -> orderService.save(order, user)));
+
+        // 1 product lookup + 1 order insert + 1 item batch, plus at most one id pool refill per sequence
+        assertTrue(batched <= 5, "batched round trips: " + batched);
+        assertTrue(unbatched - batched >= LINES - 1, "unbatched=" + unbatched + " batched=" + batched);
+    }
+}
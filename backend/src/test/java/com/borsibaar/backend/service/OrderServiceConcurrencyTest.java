@@ -0,0 +1,91 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.OrderDto;
+import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PriceHistory;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.PriceHistoryRepository;
+import com.borsibaar.backend.repository.ProductRepository;
+import com.borsibaar.backend.support.BarFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class OrderServiceConcurrencyTest {
+
+    @Autowired private OrderService orderService;
+    @Autowired private PriceBook priceBook;
+    @Autowired private PriceFlushService priceFlushService;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private PriceHistoryRepository priceHistoryRepository;
+    @Autowired private BarFixture bar;
+
+    @Test
+    void concurrentOrdersOnOneProduct_countEverySaleAndFollowThePriceTrajectory() throws Exception {
+        User user = bar.owner("Stress");
+        Category beer = bar.category(user, "Beer");
+        Product product = bar.product(beer, "Lager", "9.00", "4.00", "9.00");
+
+        int orders = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return orderService.save(orderOf(product.getId()), user);
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        priceFlushService.flush();
+
+        // Non-hot products drop 6% per sale until they hit the 4.00 floor
+        List<long[]> expected = new ArrayList<>();
+        long cents = 900;
+        for (int i = 0; i < orders; i++) {
+            long next = Math.max(400, (cents * 94 + 50) / 100);
+            if (next != cents) expected.add(new long[]{cents, next});
+            cents = next;
+        }
+
+        Product stored = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(orders, stored.getSalesCount());
+        assertEquals(orders, priceBook.quote(stored).salesCount());
+        assertEquals(Money.ofCents(cents), stored.getPrice());
+
+        List<PriceHistory> history = priceHistoryRepository.findByProductIdOrderByChangedAtAsc(product.getId());
+        List<long[]> actual = history.stream()
+                .map(h -> new long[]{h.getOldPrice().cents(), h.getNewPrice().cents()})
+                .sorted(Comparator.comparingLong((long[] c) -> c[0]).reversed())
+                .toList();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static OrderDto orderOf(Long productId) {
+        return OrderDto.builder()
+                .items(List.of(OrderItemDto.builder()
+                        .quantity(1)
+                        .product(ProductDTO.builder().id(productId).build())
+                        .build()))
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.borsibaar.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+    private final PasswordHashing hashing = new PasswordHashing(encoder, meters, 1, 1);
+
+    @AfterEach
+    void close() {
+        hashing.close();
+    }
+
+    @Test
+    void hashesOffTheCallingThread() {
+        String hash = hashing.encode("password1");
+        assertTrue(encoder.matches("password1", hash));
+        assertNotEquals(Thread.currentThread().getName(),
+                hashing.submit(() -> Thread.currentThread().getName()).join());
+        assertTrue(hashing.submit(() -> Thread.currentThread().getName()).join().startsWith("bcrypt-"));
+    }
+
+    @Test
+    void fullQueueIsRejectedAtOnce() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> busy = hashing.submit(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        running.await();
+        CompletableFuture<String> queued = hashing.submit(() -> "queued");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> hashing.submit(() -> "third"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals(1, meters.counter("auth.bcrypt.rejected").count());
+        assertEquals(1.0, meters.get("auth.bcrypt.queue").gauge().value());
+
+        release.countDown();
+        busy.join();
+        assertEquals("queued", queued.join());
+    }
+}
@@ -0,0 +1,207 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PendingFlush;
+import com.borsibaar.backend.entity.PriceChange;
+import com.borsibaar.backend.entity.PriceReason;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.support.NoOpTransactionManager;
+import com.borsibaar.backend.support.SettableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceBookTest {
+
+    private static Product product(long id, String category, String price) {
+        return Product.builder()
+                .id(id)
+                .price(Money.parse(price))
+                .minPrice(Money.parse("4.00"))
+                .maxPrice(Money.parse("9.00"))
+                .salesCount(0L)
+                .category(Category.builder().name(category).build())
+                .build();
+    }
+
+    @Test
+    void reprice_clampsToMinAndMax() {
+        PriceBook book = new PriceBook(null);
+        Product p = product(1L, "Cocktails", "8.50");
+
+        PriceChange up = book.update(p, e -> e.reprice(1_000L, PriceReason.ORDER_BUMP, 0));
+        assertEquals(900L, up.newCents());
+
+        PriceChange down = book.update(p, e -> e.reprice(100L, PriceReason.ORDER_DROP, 0));
+        assertEquals(400L, down.newCents());
+
+        assertNull(book.update(p, e -> e.reprice(300L, PriceReason.ORDER_DROP, 0)));
+    }
+
+    @Test
+    void drain_handsOverPendingChangesOnce() {
+        PriceBook book = new PriceBook(null);
+        Product p = product(1L, "Beer", "5.00");
+
+        book.update(p, e -> {
+            e.sell(3);
+            return e.reprice(470L, PriceReason.ORDER_DROP, 0);
+        });
+
+        List<PendingFlush> pending = book.drain();
+        assertEquals(1, pending.size());
+        assertEquals(3L, pending.get(0).salesDelta());
+        assertEquals(470L, pending.get(0).priceCents());
+        assertEquals(1, pending.get(0).history().size());
+
+        assertTrue(book.drain().isEmpty());
+        assertEquals(3L, book.quote(p).salesCount());
+    }
+
+    @Test
+    void restore_mergesFailedFlushWithNewerSales() {
+        PriceBook book = new PriceBook(null);
+        Product p = product(1L, "Beer", "5.00");
+
+        book.update(p, e -> { e.sell(2); return null; });
+        List<PendingFlush> failed = book.drain();
+        book.update(p, e -> { e.sell(1); return null; });
+        book.restore(failed);
+
+        List<PendingFlush> retry = book.drain();
+        assertEquals(1, retry.size());
+        assertEquals(3L, retry.get(0).salesDelta());
+    }
+
+    @Test
+    void update_stampsMovesInTheOrderTheyTookTheLock() {
+        SettableClock clock = new SettableClock();
+        PriceBook book = new PriceBook(null, clock);
+        Product p = product(1L, "Beer", "5.00");
+        LocalDateTime t0 = LocalDateTime.of(2025, 1, 10, 20, 0);
+
+        clock.set(t0.plusMinutes(5));
+        book.update(p, e -> e.reprice(550L, PriceReason.ORDER_BUMP, 0));
+        // the clock steps back before the next order gets the lock
+        clock.set(t0.plusMinutes(3));
+        book.update(p, e -> { e.sell(1); return e.reprice(600L, PriceReason.ORDER_BUMP, 0); });
+        clock.set(t0.plusMinutes(6));
+        book.update(p, e -> e.reprice(580L, PriceReason.DECAY, 0));
+
+        PendingFlush pending = book.drain().get(0);
+        assertEquals(List.of(t0.plusMinutes(5), t0.plusMinutes(5), t0.plusMinutes(6)),
+                pending.history().stream().map(PriceChange::changedAt).toList());
+        assertEquals(t0.plusMinutes(5), pending.lastSaleAt());
+    }
+
+    @Test
+    void rollback_undoesItsSaleButKeepsAMoveMadeOnTopOfIt() {
+        PriceBook book = new PriceBook(null);
+        Product p = product(1L, "Beer", "5.00");
+
+        NoOpTransactionManager.template().executeWithoutResult(status -> {
+            book.update(p, e -> {
+                e.sell(2);
+                return e.reprice(470L, PriceReason.ORDER_DROP, 0);
+            });
+            // a decay tick, outside any transaction, prices off the uncommitted move
+            Thread other = Thread.ofPlatform().start(
+                    () -> book.update(p, e -> e.reprice(450L, PriceReason.DECAY, 0)));
+            try {
+                other.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0L, book.quote(p).salesCount());
+        assertEquals(450L, book.quote(p).priceCents());
+        List<PendingFlush> pending = book.drain();
+        assertEquals(1, pending.size());
+        assertEquals(0L, pending.get(0).salesDelta());
+        assertEquals(List.of(450L), pending.get(0).history().stream().map(PriceChange::newCents).toList());
+    }
+
+    @Test
+    void rollback_keepsAnEarlierManualEditDirty() {
+        PriceBook book = new PriceBook(null);
+        Product p = product(1L, "Beer", "5.00");
+        book.update(p, e -> null);
+
+        book.track(product(1L, "Beer", "6.00"));
+        rollBackASale(book, p, () -> { });
+
+        List<PendingFlush> pending = book.drain();
+        assertEquals(1, pending.size(), "the edit was never written");
+        assertEquals(600L, pending.get(0).priceCents());
+        assertEquals(0L, pending.get(0).salesDelta());
+    }
+
+    @Test
+    void rollback_keepsAManualEditMadeMeanwhileDirty() {
+        PriceBook book = new PriceBook(null);
+        Product p = product(1L, "Beer", "5.00");
+
+        rollBackASale(book, p, () -> book.track(product(1L, "Beer", "6.00")));
+
+        List<PendingFlush> pending = book.drain();
+        assertEquals(1, pending.size(), "the edit was never written");
+        assertEquals(600L, pending.get(0).priceCents());
+        assertTrue(pending.get(0).history().isEmpty());
+    }
+
+    // sells one, runs meanwhile while the sale is still open, then rolls the sale back
+    private static void rollBackASale(PriceBook book, Product p, Runnable meanwhile) {
+        NoOpTransactionManager.template().executeWithoutResult(status -> {
+            book.update(p, e -> {
+                e.sell(1);
+                return e.reprice(470L, PriceReason.ORDER_DROP, 0);
+            });
+            meanwhile.run();
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void concurrentSales_neverLoseIncrements() throws Exception {
+        PriceBook book = new PriceBook(null);
+        Product p = product(1L, "Beer", "9.00");
+        int threads = 16, perThread = 1_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder flushed = new LongAdder();
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    book.update(p, e -> {
+                        e.sell(1);
+                        return e.reprice(e.priceCents() - 1, PriceReason.ORDER_DROP, 0);
+                    });
+                    if (i % 100 == 0) book.drain().forEach(d -> flushed.add(d.salesDelta()));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        book.drain().forEach(d -> flushed.add(d.salesDelta()));
+
+        assertEquals((long) threads * perThread, book.quote(p).salesCount());
+        assertEquals((long) threads * perThread, flushed.sum());
+        assertEquals(400L, book.quote(p).priceCents());
+    }
+}
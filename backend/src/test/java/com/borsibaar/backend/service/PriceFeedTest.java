@@ -0,0 +1,190 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PriceReason;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.support.NoOpTransactionManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PriceFeedTest {
+
+    private final PriceBook book = new PriceBook(null);
+    private final BoardSnapshots snapshots = mock(BoardSnapshots.class);
+    private final PriceFeed feed = new PriceFeed(book, snapshots,
+            new ObjectMapper().registerModule(new JavaTimeModule()), 2, false);
+
+    {
+        when(snapshots.get(any())).thenReturn(new BoardSnapshots.Snapshot(1L, "[]".getBytes()));
+        ReflectionTestUtils.setField(feed, "bufferEvents", 4);
+        ReflectionTestUtils.setField(feed, "timeoutMs", 60_000L);
+    }
+
+    @AfterEach
+    void close() {
+        feed.close();
+    }
+
+    private static User owner(int id) {
+        return User.builder().id(id).build();
+    }
+
+    private static Product product(long id, User owner) {
+        return Product.builder()
+                .id(id)
+                .price(Money.parse("5.00"))
+                .minPrice(Money.parse("4.00"))
+                .maxPrice(Money.parse("9.00"))
+                .salesCount(0L)
+                .owner(owner)
+                .category(Category.builder().name("Beer").build())
+                .build();
+    }
+
+    /** Records the raw frame of every event; optionally blocks in send until released. */
+    private static final class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            events.add(builder.build().stream()
+                    .map(d -> String.valueOf(d.getData()))
+                    .collect(Collectors.joining()));
+        }
+
+        String next() throws InterruptedException {
+            return events.poll(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void burstOfMovesIsCoalescedIntoOneEventPerOwner() throws Exception {
+        User owner = owner(7);
+        Product beer = product(1L, owner);
+        Product cider = product(2L, owner);
+        RecordingEmitter screen = new RecordingEmitter(new CountDownLatch(0));
+        feed.subscribe(owner, screen);
+        assertTrue(screen.next().contains("snapshot"));
+
+        book.update(beer, e -> e.reprice(550L, PriceReason.ORDER_BUMP, 0));
+        book.update(beer, e -> e.reprice(600L, PriceReason.ORDER_BUMP, 0));
+        book.update(beer, e -> {
+            e.sell(1);
+            return null;
+        });
+        book.update(cider, e -> {
+            e.sell(2);
+            return null;
+        });
+        feed.publish();
+
+        String event = screen.next();
+        assertTrue(event.contains("prices"), event);
+        assertTrue(event.contains("\"id\":1") && event.contains("\"price\":6.00"), event);
+        assertTrue(event.contains("\"priceChange\":0.50"), "the last move survives the later sale: " + event);
+        assertTrue(event.contains("\"id\":2") && event.contains("\"priceChange\":null"), event);
+        assertNull(screen.events.poll(200, TimeUnit.MILLISECONDS), "one event for the whole burst");
+    }
+
+    @Test
+    void movesOfOwnersWithoutScreensAreNotTracked() throws Exception {
+        User watched = owner(1);
+        RecordingEmitter screen = new RecordingEmitter(new CountDownLatch(0));
+        feed.subscribe(watched, screen);
+        screen.next();
+
+        book.update(product(5L, owner(2)), e -> e.reprice(700L, PriceReason.ORDER_BUMP, 0));
+        feed.publish();
+
+        assertNull(screen.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void movesOfRolledBackOrdersAreNeverSent() throws Exception {
+        User owner = owner(4);
+        Product beer = product(1L, owner);
+        RecordingEmitter screen = new RecordingEmitter(new CountDownLatch(0));
+        feed.subscribe(owner, screen);
+        screen.next();
+
+        NoOpTransactionManager.template().executeWithoutResult(status -> {
+            book.update(beer, e -> e.reprice(550L, PriceReason.ORDER_BUMP, 0));
+            feed.publish();
+            status.setRollbackOnly();
+        });
+        feed.publish();
+
+        assertNull(screen.events.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(500L, book.quote(1L).priceCents());
+    }
+
+    @Test
+    void aProductWithAnOpenOrderWaitsForItToSettle() throws Exception {
+        User owner = owner(5);
+        Product beer = product(1L, owner);
+        RecordingEmitter screen = new RecordingEmitter(new CountDownLatch(0));
+        feed.subscribe(owner, screen);
+        screen.next();
+
+        book.update(beer, e -> e.reprice(550L, PriceReason.ORDER_BUMP, 0));
+        NoOpTransactionManager.template().executeWithoutResult(status -> {
+            book.update(beer, e -> e.reprice(600L, PriceReason.ORDER_BUMP, 0));
+            feed.publish();
+            status.setRollbackOnly();
+        });
+        assertNull(screen.events.poll(200, TimeUnit.MILLISECONDS), "600 may still roll back");
+
+        feed.publish();
+        String event = screen.next();
+        assertTrue(event.contains("\"price\":5.50") && event.contains("\"priceChange\":0.50"), event);
+    }
+
+    @Test
+    void slowSubscriberIsDroppedWithoutHoldingUpOthers() throws Exception {
+        User owner = owner(3);
+        CountDownLatch stuck = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(stuck);
+        RecordingEmitter fast = new RecordingEmitter(new CountDownLatch(0));
+        feed.subscribe(owner, slow);
+        feed.subscribe(owner, fast);
+        assertEquals(2, feed.subscriberCount());
+        assertTrue(fast.next().contains("snapshot"));
+
+        // the slow screen is stuck sending its snapshot; the fifth heartbeat overflows its buffer of 4
+        for (int i = 0; i < 5; i++) {
+            feed.heartbeat();
+            assertNotNull(fast.next(), "heartbeat " + i);
+        }
+
+        assertEquals(1, feed.subscriberCount());
+        stuck.countDown();
+    }
+}
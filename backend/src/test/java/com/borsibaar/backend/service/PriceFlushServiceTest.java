@@ -0,0 +1,104 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PendingFlush;
+import com.borsibaar.backend.entity.PriceChange;
+import com.borsibaar.backend.entity.PriceReason;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.PriceBookRepository;
+import com.borsibaar.backend.repository.PriceTickStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceFlushServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final PriceBook priceBook = new PriceBook(null);
+    private final BoardVersions versions = new BoardVersions(priceBook);
+    private final List<PendingFlush> written = new ArrayList<>();
+    private RuntimeException writeFailure;
+    private RuntimeException appendFailure;
+
+    private final PriceBookRepository priceBookRepo = new PriceBookRepository(null) {
+        @Override
+        public int write(List<PendingFlush> pending) {
+            if (writeFailure != null) throw writeFailure;
+            written.addAll(pending);
+            return pending.size();
+        }
+    };
+
+    private PriceFlushService flushService() throws IOException {
+        Files.createFile(dir.resolve("seeded"));
+        PriceTickStore tickStore = new PriceTickStore(null, null, null, dir, 4) {
+            @Override
+            public void append(List<PriceChange> changes) {
+                if (appendFailure != null) throw appendFailure;
+            }
+        };
+        PriceFlushService service = new PriceFlushService(priceBook, priceBookRepo, tickStore, versions);
+        ReflectionTestUtils.setField(service, "chunkSize", 500);
+        return service;
+    }
+
+    private void sellAndMove() {
+        Product beer = Product.builder()
+                .id(1L)
+                .price(Money.parse("5.00"))
+                .minPrice(Money.parse("4.00"))
+                .maxPrice(Money.parse("9.00"))
+                .salesCount(0L)
+                .owner(User.builder().id(3).build())
+                .category(Category.builder().name("Beer").build())
+                .build();
+        priceBook.update(beer, e -> {
+            e.sell(2);
+            return e.reprice(470L, PriceReason.ORDER_DROP, 0);
+        });
+    }
+
+    @Test
+    void aFailedWrite_isRetried() throws Exception {
+        PriceFlushService service = flushService();
+        sellAndMove();
+
+        writeFailure = new DataAccessResourceFailureException("down");
+        service.flush();
+        writeFailure = null;
+        service.flush();
+
+        assertEquals(1, written.size());
+        assertEquals(2L, written.getFirst().salesDelta());
+    }
+
+    @Test
+    void aFailedTickAppend_isNotWrittenAgainButRebuiltFromHistory() throws Exception {
+        PriceFlushService service = flushService();
+        sellAndMove();
+        long before = versions.version(3);
+
+        appendFailure = new UncheckedIOException(new IOException("No space left on device"));
+        service.flush();
+        service.flush();
+
+        assertEquals(1, written.size(), "sales already persisted must not be counted again");
+        assertEquals(0, priceBook.dirtyCount());
+        assertFalse(Files.exists(dir.resolve("seeded")), "the next start reseeds the tick store");
+        assertTrue(versions.version(3) > before);
+    }
+}
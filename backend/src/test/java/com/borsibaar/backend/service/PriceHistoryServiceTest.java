@@ -0,0 +1,71 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.PriceHistoryDto;
+import com.borsibaar.backend.dtos.PriceHistoryPageDto;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PriceHistory;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.PriceHistoryRepository;
+import com.borsibaar.backend.support.BarFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Keyset paging over {@code price_history}, for a product the tick store has not seen yet. */
+@SpringBootTest
+class PriceHistoryServiceTest {
+
+    @Autowired private PriceHistoryService priceHistoryService;
+    @Autowired private PriceHistoryRepository priceHistoryRepository;
+    @Autowired private BarFixture bar;
+
+    @Test
+    void page_walksTheTableWithoutGapsOrRepeats() {
+        User user = bar.owner("History");
+        Category category = bar.category(user, "Beer");
+        Product product = bar.product(category, "Lager", "5.00", "3.00", "8.00");
+
+        // pairs of rows share a timestamp, so only the id breaks the tie
+        LocalDateTime t0 = LocalDateTime.of(2025, 1, 10, 20, 0, 0, 123_456_000);
+        List<PriceHistory> rows = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            rows.add(PriceHistory.builder()
+                    .product(product)
+                    .oldPrice(Money.parse("5.00"))
+                    .newPrice(Money.ofCents(500 + i))
+                    .changedAt(t0.plusMinutes(i / 2))
+                    .reason("Price change")
+                    .build());
+        }
+        priceHistoryRepository.saveAll(rows);
+
+        List<Money> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PriceHistoryPageDto page = priceHistoryService.page(product.getId(), user.getId(),
+                    t0.plusMinutes(1), null, cursor, 4);
+            page.getItems().stream().map(PriceHistoryDto::getNewPrice).forEach(seen::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // rows 0 and 1 fall before "from"
+        List<Money> expected = new ArrayList<>();
+        for (int i = 2; i < 25; i++) expected.add(Money.ofCents(500 + i));
+        assertEquals(expected, seen);
+        assertEquals(6, pages);
+
+        assertThrows(ResponseStatusException.class, () ->
+                priceHistoryService.page(product.getId(), user.getId() + 1, null, null, null, null));
+    }
+}
@@ -0,0 +1,67 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PriceReason;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PricingMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PriceBook book = new PriceBook(null);
+
+    private static Product product(long id, int ownerId, String category) {
+        return Product.builder()
+                .id(id)
+                .price(Money.parse("6.00"))
+                .minPrice(Money.parse("4.00"))
+                .maxPrice(Money.parse("9.00"))
+                .salesCount(0L)
+                .category(Category.builder().name(category).build())
+                .owner(User.builder().id(ownerId).build())
+                .build();
+    }
+
+    @Test
+    void movesAreCountedByOwnerCategoryReasonAndDirection() {
+        new PricingMetrics(book, registry);
+        Product shot = product(1L, 7, "Shots");
+
+        book.update(shot, e -> e.reprice(660, PriceReason.ORDER_BUMP, 0));
+        book.update(shot, e -> e.reprice(700, PriceReason.ORDER_BUMP, 0));
+        book.update(shot, e -> e.reprice(695, PriceReason.DECAY, 3));
+        book.update(shot, e -> e.reprice(695, PriceReason.DECAY, 4)); // no move
+
+        assertEquals(2, registry.get("prices.moves")
+                .tags("owner", "7", "category", "shots", "reason", "order_bump", "direction", "up").counter().count());
+        assertEquals(1, registry.get("prices.moves")
+                .tags("owner", "7", "reason", "decay", "direction", "down").counter().count());
+    }
+
+    @Test
+    void decayTickReportsDurationAndProductsPerOwner() {
+        PriceDecayService decay = new PriceDecayService(book, mock(PriceFlushService.class), registry);
+        ReflectionTestUtils.setField(decay, "chunkSize", 2);
+        for (long id = 1; id <= 3; id++) book.track(product(id, 1, "Beer"));
+        book.track(product(4L, 2, "Beer"));
+        book.update(product(3L, 1, "Beer"), e -> { e.sell(1); return null; }); // in grace
+
+        decay.decayPrices();
+
+        assertEquals(1, registry.get("pricing.decay.tick").timer().count());
+        assertEquals(2, registry.get("pricing.decay.chunk").tag("owner", "1").timer().count());
+        assertEquals(3, registry.get("pricing.decay.last.scanned").tag("owner", "1").gauge().value());
+        assertEquals(2, registry.get("pricing.decay.last.changed").tag("owner", "1").gauge().value());
+        assertEquals(1, registry.get("pricing.decay.products").tags("owner", "2", "result", "changed").counter().count());
+        assertTrue(registry.get("pricing.decay.last.tick.seconds").gauge().value() > 0);
+        assertEquals(60, registry.get("pricing.decay.period.seconds").gauge().value());
+    }
+}
@@ -0,0 +1,79 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final PrincipalCache cache = new PrincipalCache(meters);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    {
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+    }
+
+    private UserDetails load(int id) {
+        loads.incrementAndGet();
+        return User.builder().id(id).email("u" + id + "@b.ee").build();
+    }
+
+    @Test
+    void secondRequestWithTheSameTokenIsAHit() {
+        UserDetails first = cache.get("u1@b.ee", 1000L, () -> load(1));
+        assertSame(first, cache.get("u1@b.ee", 1000L, () -> load(1)));
+        cache.get("u1@b.ee", 2000L, () -> load(1)); // a newer token is its own entry
+
+        assertEquals(2, loads.get());
+        assertEquals(1.0 / 3, meters.get("security.principal.cache.hit.ratio").gauge().value(), 0.01);
+    }
+
+    @Test
+    void expiredEntriesAreLoadedAgain() {
+        ReflectionTestUtils.setField(cache, "ttlMs", -1L);
+        cache.get("u1@b.ee", 1000L, () -> load(1));
+        cache.get("u1@b.ee", 1000L, () -> load(1));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateDropsEveryTokenOfTheUser() {
+        cache.get("u1@b.ee", 1000L, () -> load(1));
+        cache.get("u2@b.ee", 1000L, () -> load(2));
+
+        cache.invalidate(1);
+
+        assertEquals(1, cache.size());
+        cache.get("u1@b.ee", 1000L, () -> load(1));
+        cache.get("u2@b.ee", 1000L, () -> load(2));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotCached() {
+        cache.get("u1@b.ee", 1000L, () -> {
+            cache.invalidate(1); // the user changes while the old row is being read
+            return load(1);
+        });
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void oldestEntryGoesWhenFull() {
+        cache.get("u1@b.ee", 1000L, () -> load(1));
+        cache.get("u2@b.ee", 1000L, () -> load(2));
+        cache.get("u3@b.ee", 1000L, () -> load(3));
+
+        assertEquals(2, cache.size());
+        cache.get("u1@b.ee", 1000L, () -> load(1));
+        assertEquals(4, loads.get());
+    }
+}
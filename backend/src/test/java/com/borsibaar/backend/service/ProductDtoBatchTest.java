@@ -0,0 +1,75 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.PriceHistory;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.PriceHistoryRepository;
+import com.borsibaar.backend.support.BarFixture;
+import com.borsibaar.backend.support.RoundTripCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** A whole menu's DTOs come from one product query and one history query. */
+@SpringBootTest
+class ProductDtoBatchTest {
+
+    private static final int PRODUCTS = 30;
+    private static final int CHANGES = 12;
+
+    @Autowired private ProductService productService;
+    @Autowired private PriceHistoryRepository priceHistoryRepository;
+    @Autowired private BarFixture bar;
+
+    @Test
+    void findForUser_costsTwoQueriesRegardlessOfMenuSize() {
+        User user = bar.owner("Menu");
+        Category category = bar.category(user, "Beer");
+
+        LocalDateTime t0 = LocalDateTime.now().minusHours(1);
+        List<PriceHistory> history = new ArrayList<>();
+        for (Product p : bar.products(category, "Beer", PRODUCTS)) {
+            // alternate up/down so the last change and the EMA are distinguishable
+            for (int c = 0; c < CHANGES; c++) {
+                history.add(PriceHistory.builder()
+                        .product(p)
+                        .oldPrice(Money.parse("6.00"))
+                        .newPrice(c % 2 == 0 ? Money.parse("6.10") : Money.parse("5.80"))
+                        .changedAt(t0.plusMinutes(c))
+                        .reason("Price change")
+                        .build());
+            }
+        }
+        priceHistoryRepository.saveAll(history);
+
+        RoundTripCounter.Counted<List<ProductDTO>> counted = RoundTripCounter.count(() -> productService.findForUser(user));
+        List<ProductDTO> dtos = counted.result();
+
+        assertEquals(PRODUCTS, dtos.size());
+        assertEquals(2, counted.roundTrips());
+
+        ProductDTO dto = dtos.get(0);
+        // last change was c = 11: 6.00 -> 5.80
+        assertEquals(Money.parse("-0.20"), dto.getPriceChange());
+        assertFalse(dto.getPriceUp());
+
+        // EMA over the last 8 deltas, oldest first: +0.10, -0.20, ... ending on -0.20
+        BigDecimal alpha = new BigDecimal("0.55");
+        BigDecimal ema = new BigDecimal("0.10");
+        for (int c = 5; c < CHANGES; c++) {
+            BigDecimal delta = c % 2 == 0 ? new BigDecimal("0.10") : new BigDecimal("-0.20");
+            ema = delta.multiply(alpha).add(ema.multiply(BigDecimal.ONE.subtract(alpha)));
+        }
+        assertEquals(Money.of(new BigDecimal("6.00").add(ema)), dto.getPredictedPrice());
+    }
+}
@@ -0,0 +1,78 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.dtos.OrderDto;
+import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.dtos.ProductRevenueDto;
+import com.borsibaar.backend.dtos.RevenueDto;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.Order;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.RevenueRepository;
+import com.borsibaar.backend.support.BarFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Rollups follow order saves, edits and deletes, and a backfill rebuilds the same numbers. */
+@SpringBootTest
+class RevenueServiceTest {
+
+    @Autowired private OrderService orderService;
+    @Autowired private RevenueService revenueService;
+    @Autowired private RevenueRepository revenueRepository;
+    @Autowired private BarFixture bar;
+
+    private static OrderDto order(Object... productAndQuantity) {
+        List<OrderItemDto> items = new ArrayList<>();
+        for (int i = 0; i < productAndQuantity.length; i += 2) {
+            items.add(OrderItemDto.builder()
+                    .product(ProductDTO.builder().id((Long) productAndQuantity[i]).build())
+                    .quantity((Integer) productAndQuantity[i + 1])
+                    .build());
+        }
+        return OrderDto.builder().items(items).build();
+    }
+
+    @Test
+    void rollupsTrackOrdersAndMatchBackfill() {
+        User user = bar.owner("Till");
+        Category category = bar.category(user, "Beer");
+        Long lager = bar.product(category, "Lager").getId();
+        Long stout = bar.product(category, "Stout").getId();
+
+        Order first = orderService.save(order(lager, 2, stout, 1), user);
+        Order second = orderService.save(order(lager, 1), user);
+        orderService.update(second.getId(), order(stout, 3), user);
+        Order third = orderService.save(order(stout, 1), user);
+        orderService.delete(third.getId(), user);
+
+        RevenueDto live = revenueService.report(user.getId(), null, null);
+        assertEquals(2, live.getOrders());
+        assertEquals(2, live.getProducts().size());
+        assertEquals(stout, live.getProducts().get(0).getProductId());
+        assertEquals(4, live.getProducts().get(0).getSold());
+        assertEquals(2, live.getProducts().get(1).getSold());
+
+        Money productSum = live.getProducts().stream()
+                .map(ProductRevenueDto::getRevenue)
+                .reduce(Money.ZERO, Money::plus);
+        assertEquals(productSum, live.getRevenue());
+        assertTrue(live.getRevenue().compareTo(first.getTotal()) > 0);
+
+        revenueRepository.backfill();
+        RevenueDto rebuilt = revenueService.report(user.getId(), null, null);
+        assertEquals(0, live.getRevenue().compareTo(rebuilt.getRevenue()));
+        assertEquals(live.getOrders(), rebuilt.getOrders());
+        for (int i = 0; i < live.getProducts().size(); i++) {
+            assertEquals(live.getProducts().get(i).getSold(), rebuilt.getProducts().get(i).getSold());
+            assertEquals(0, live.getProducts().get(i).getRevenue().compareTo(rebuilt.getProducts().get(i).getRevenue()));
+        }
+    }
+}
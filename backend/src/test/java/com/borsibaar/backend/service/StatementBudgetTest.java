@@ -0,0 +1,121 @@
+package com.borsibaar.backend.service;
+
+import com.borsibaar.backend.configs.StatementStatsFilter;
+import com.borsibaar.backend.dtos.OrderDto;
+import com.borsibaar.backend.dtos.OrderItemDto;
+import com.borsibaar.backend.dtos.ProductDTO;
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.support.BarFixture;
+import com.borsibaar.backend.support.RoundTripCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets for the hot paths, checked at two sizes each so a query per line, product or
+ * order fails here rather than on a busy night.
+ */
+@SpringBootTest(properties = "db.statement-stats.header=true")
+@AutoConfigureMockMvc
+class StatementBudgetTest {
+
+    @Autowired private OrderService orderService;
+    @Autowired private ProductService productService;
+    @Autowired private JwtService jwtService;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private MockMvc mvc;
+    @Autowired private BarFixture bar;
+
+    private List<Long> stock(User user, int products) {
+        Category category = bar.category(user, "Gin");
+        return bar.products(category, "Gin", products).stream().map(Product::getId).toList();
+    }
+
+    private static OrderDto order(List<Long> productIds, int lines) {
+        List<OrderItemDto> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            items.add(OrderItemDto.builder()
+                    .quantity(1)
+                    .product(ProductDTO.builder().id(productIds.get(i % productIds.size())).build())
+                    .build());
+        }
+        return OrderDto.builder().items(items).build();
+    }
+
+    @Test
+    void save_doesNotGrowWithLines() {
+        User user = bar.owner("Saver");
+        List<Long> products = stock(user, 20);
+        orderService.save(order(products, 1), user); // warm up the id pools
+
+        // product lookup + order insert + item batch, and a pool refill per sequence at worst
+        RoundTripCounter.assertAtMost(5, () -> orderService.save(order(products, 1), user));
+        RoundTripCounter.assertAtMost(5, () -> orderService.save(order(products, 20), user));
+    }
+
+    @Test
+    void findForUser_doesNotGrowWithProducts() {
+        User few = bar.owner("Few");
+        User many = bar.owner("Many");
+        stock(few, 3);
+        stock(many, 30);
+
+        // products, then recent price history for all of them
+        assertEquals(3, RoundTripCounter.assertAtMost(2, () -> productService.findForUser(few)).size());
+        assertEquals(30, RoundTripCounter.assertAtMost(2, () -> productService.findForUser(many)).size());
+    }
+
+    @Test
+    void orderListings_doNotGrowWithOrders() {
+        User few = bar.owner("Quiet");
+        User many = bar.owner("Busy");
+        List<Long> fewProducts = stock(few, 3);
+        List<Long> manyProducts = stock(many, 10);
+        for (int o = 0; o < 2; o++) orderService.save(order(fewProducts, o + 1), few);
+        for (int o = 0; o < 15; o++) orderService.save(order(manyProducts, o % 4 + 1), many);
+
+        RoundTripCounter.Counted<List<OrderDto>> quiet = RoundTripCounter.count(() -> orderService.getMyOrders(few));
+        RoundTripCounter.Counted<List<OrderDto>> busy = RoundTripCounter.count(() -> orderService.getMyOrders(many));
+
+        assertEquals(2, quiet.result().size());
+        assertEquals(15, busy.result().size());
+        assertEquals(quiet.roundTrips(), busy.roundTrips(), () -> String.join("\n", busy.statements()));
+        // orders with items and products, then recent price history
+        assertTrue(busy.roundTrips() <= 3, () -> String.join("\n", busy.statements()));
+        RoundTripCounter.assertAtMost(3, () -> orderService.getOrderPage(many, null, null, null, 10));
+    }
+
+    @Test
+    void requests_reportStatementsInHeaderAndMetrics() throws Exception {
+        User user = bar.owner("Header");
+        List<Long> products = stock(user, 4);
+        orderService.save(order(products, 3), user);
+        String token = jwtService.generateTokenForUser(user.getEmail());
+
+        MvcResult result = mvc.perform(get("/api/orders/my").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String statements = result.getResponse().getHeader(StatementStatsFilter.STATEMENTS_HEADER);
+        assertNotNull(statements);
+        // principal lookup on the token cache miss, then the listing itself
+        int count = Integer.parseInt(statements);
+        assertTrue(count >= 1 && count <= 4, "statements: " + count);
+        assertNotNull(result.getResponse().getHeader(StatementStatsFilter.TIME_HEADER));
+        assertTrue(meterRegistry.get("http.server.requests.sql.statements")
+                .tags("method", "GET", "uri", "/api/orders/my").summary().count() >= 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.borsibaar.backend.support;
+
+import com.borsibaar.backend.entity.Category;
+import com.borsibaar.backend.entity.Money;
+import com.borsibaar.backend.entity.Product;
+import com.borsibaar.backend.entity.User;
+import com.borsibaar.backend.repository.CategoryRepository;
+import com.borsibaar.backend.repository.ProductRepository;
+import com.borsibaar.backend.repository.UserRepository;
+import com.borsibaar.backend.service.PriceBook;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A fresh bar for each test on the shared database: an owner with an email no other run has used,
+ * and categories and products of theirs, tracked by the price book as {@code ProductService} would.
+ */
+@Component
+public class BarFixture {
+
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final PriceBook priceBook;
+
+    public BarFixture(UserRepository userRepository,
+                      CategoryRepository categoryRepository,
+                      ProductRepository productRepository,
+                      PriceBook priceBook) {
+        this.userRepository = userRepository;
+        this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.priceBook = priceBook;
+    }
+
+    /** A new owner named {@code name} plus a random tag, which also makes the email unique. */
+    public User owner(String name) {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        return userRepository.save(User.builder()
+                .fullName(name + " " + tag)
+                .email(name.toLowerCase() + "-" + tag + "@test.local")
+                .password("x")
+                .build());
+    }
+
+    public Category category(User owner, String name) {
+        return categoryRepository.save(Category.builder().name(name).owner(owner).build());
+    }
+
+    /** A product at 6.00, moving between 4.00 and 9.00. */
+    public Product product(Category category, String name) {
+        return product(category, name, "6.00", "4.00", "9.00");
+    }
+
+    public Product product(Category category, String name, String price, String minPrice, String maxPrice) {
+        Product product = productRepository.save(Product.builder()
+                .name(name)
+                .price(Money.parse(price))
+                .minPrice(Money.parse(minPrice))
+                .maxPrice(Money.parse(maxPrice))
+                .salesCount(0L)
+                .category(category)
+                .owner(category.getOwner())
+                .build());
+        priceBook.track(product);
+        return product;
+    }
+
+    /** {@code count} products named {@code name #0}, {@code name #1}, ... at the default prices. */
+    public List<Product> products(Category category, String name, int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(product(category, name + " #" + i));
+        }
+        return products;
+    }
+}
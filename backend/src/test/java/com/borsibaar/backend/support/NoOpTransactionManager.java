@@ -0,0 +1,35 @@
+package com.borsibaar.backend.support;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * A transaction manager with no resource behind it: commits and rollbacks do nothing, but
+ * transaction synchronizations run as they would around a real one.
+ */
+public final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+    /** A template running its callbacks in a fresh no-op transaction. */
+    public static TransactionTemplate template() {
+        return new TransactionTemplate(new NoOpTransactionManager());
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.borsibaar.backend.support;
+
+import com.borsibaar.backend.configs.StatementTally;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Counts JDBC round trips (statement executions, a whole batch counting once) made by the
+ * calling thread, and in total, through the application's {@link StatementTally}.
+ */
+public final class RoundTripCounter {
+
+    private RoundTripCounter() {
+    }
+
+    /** Round trips made on any thread so far. */
+    public static long total() {
+        return StatementTally.total();
+    }
+
+    /** Runs {@code work} and returns how many round trips it made on this thread. */
+    public static int count(Runnable work) {
+        return count(() -> { work.run(); return null; }).roundTrips();
+    }
+
+    public static <T> Counted<T> count(Supplier<T> work) {
+        try (StatementTally tally = StatementTally.capturing()) {
+            T result = work.get();
+            return new Counted<>(result, tally.statements(), tally.sql());
+        }
+    }
+
+    /**
+     * Runs {@code work} and fails if it made more than {@code budget} round trips, listing the
+     * statements it ran; meant for pinning a query count so an N+1 fails the build.
+     */
+    public static <T> T assertAtMost(int budget, Supplier<T> work) {
+        Counted<T> counted = count(work);
+        if (counted.roundTrips() > budget) {
+            fail("Expected at most " + budget + " round trips but ran " + counted.roundTrips() + ":\n  "
+                    + String.join("\n  ", counted.statements()));
+        }
+        return counted.result();
+    }
+
+    public record Counted<T>(T result, int roundTrips, List<String> statements) {
+    }
+}
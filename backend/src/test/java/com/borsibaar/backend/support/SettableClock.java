@@ -0,0 +1,32 @@
+package com.borsibaar.backend.support;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/** A UTC clock reading whatever time the test last set, so updates are stamped when the test says. */
+public final class SettableClock extends Clock {
+
+    private Instant instant = Instant.EPOCH;
+
+    public void set(LocalDateTime at) {
+        instant = at.toInstant(ZoneOffset.UTC);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}
@@ -30,6 +30,16 @@ type Product = {
   predictedPrice?: number | null;
 };
 
+// Pushed by /api/prices/stream; priceChange is null when only sales moved
+type PriceUpdate = {
+  id: number;
+  price: number;
+  salesCount: number;
+  lastSaleAt?: string | null;
+  priceChange?: number | null;
+  priceUp?: boolean | null;
+};
+
 type OrderItem = {
   quantity: number;
   product: { id: number; name: string; price: number };
@@ -69,7 +79,7 @@ const PricesPage: React.FC = () => {
   const rotRef = useRef<number | null>(null);
   const pollRef = useRef<number | null>(null);
 
-  // ---- Fetch + poll (every minute)
+  // ---- Initial fetch + order poll (every minute)
   useEffect(() => {
     const token = localStorage.getItem("token") || "";
 
@@ -104,13 +114,88 @@ const PricesPage: React.FC = () => {
       }
     };
 
+    // prices arrive over the stream below; the poll only refreshes the order history for the chart
+    const loadOrders = async () => {
+      try {
+        const oRes = await fetch(`${API_BASE}/api/orders/my`, { headers: { Authorization: `Bearer ${token}` } });
+        const oData = (await oRes.json()) as Order[];
+        setOrders(Array.isArray(oData) ? oData : []);
+      } catch {
+        // ignore
+      }
+    };
+
     load();
-    pollRef.current = window.setInterval(load, 60_000);
+    pollRef.current = window.setInterval(loadOrders, 60_000);
     return () => {
       if (pollRef.current) window.clearInterval(pollRef.current);
     };
   }, [API_BASE]);
 
+  // ---- Live prices: snapshot on connect, then coalesced moves (reconnects after a drop)
+  useEffect(() => {
+    const token = localStorage.getItem("token") || "";
+    const ctrl = new AbortController();
+    let retry: number | null = null;
+
+    const apply = (name: string, data: string) => {
+      if (name === "snapshot") {
+        const list = JSON.parse(data) as Product[];
+        if (Array.isArray(list)) setProducts(list);
+      } else if (name === "prices") {
+        const moves = JSON.parse(data) as PriceUpdate[];
+        const byId = new Map(moves.map((m) => [m.id, m]));
+        setProducts((prev) =>
+          prev.map((p) => {
+            const m = byId.get(p.id);
+            if (!m) return p;
+            return m.priceChange == null
+              ? { ...p, price: m.price, salesCount: m.salesCount, lastSaleAt: m.lastSaleAt }
+              : { ...p, ...m };
+          })
+        );
+      }
+    };
+
+    const connect = async () => {
+      try {
+        const res = await fetch(`${API_BASE}/api/prices/stream`, {
+          headers: { Authorization: `Bearer ${token}`, Accept: "text/event-stream" },
+          signal: ctrl.signal,
+        });
+        if (!res.ok || !res.body) throw new Error(`stream ${res.status}`);
+        const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buf = "";
+        for (;;) {
+          const { value, done } = await reader.read();
+          if (done) break;
+          buf += value;
+          let end;
+          while ((end = buf.indexOf("\n\n")) !== -1) {
+            const frame = buf.slice(0, end);
+            buf = buf.slice(end + 2);
+            let name = "message";
+            const data: string[] = [];
+            for (const line of frame.split("\n")) {
+              if (line.startsWith("event:")) name = line.slice(6).trim();
+              else if (line.startsWith("data:")) data.push(line.slice(5));
+            }
+            if (data.length) apply(name, data.join("\n"));
+          }
+        }
+      } catch {
+        if (ctrl.signal.aborted) return;
+      }
+      retry = window.setTimeout(connect, 3_000);
+    };
+
+    connect();
+    return () => {
+      ctrl.abort();
+      if (retry) window.clearTimeout(retry);
+    };
+  }, [API_BASE]);
+
   // ---- Auto rotate selection (TV mode)
   useEffect(() => {
     if (!autoPlay || products.length <= 1) return;
@@ -1,62 +1,26 @@
-import React, { useEffect, useState, useMemo } from "react";
+import React, { useEffect, useState } from "react";
 import { toast, ToastContainer } from "react-toastify";
 import "react-toastify/dist/ReactToastify.css";
 import PageHeader from "@/components/PageHeader";
 import Card from "@/components/Card";
 import { Trophy, Package, Euro } from "lucide-react";
 
-interface OrderItemDTO {
-  quantity: number;
-  product: {
-    id: number;
-    name: string;
-    price: number;
-    [key: string]: any;
-  };
-}
-
-export interface OrderDTO {
-  id: number;
-  createdAt: string;
-  total: number;
-  items: OrderItemDTO[];
-}
-
-type AccumulatedProduct = {
-  name: string;
+type ProductRevenue = {
+  productId: number;
+  name: string | null;
   sold: number;
   revenue: number;
 };
 
-function accumulateProductsByName(orders: OrderDTO[]) {
-  const map = new Map<string, AccumulatedProduct>();
-  let grand = 0;
-
-  orders.forEach((order) => {
-    grand += order.total;
-    order.items.forEach(({ product, quantity }) => {
-      const prev = map.get(product.name) ?? {
-        name: product.name,
-        sold: 0,
-        revenue: 0,
-      };
-
-      map.set(product.name, {
-        name: product.name,
-        sold: prev.sold + quantity,
-        revenue: prev.revenue + product.price * quantity,
-      });
-    });
-  });
-
-  return {
-    list: Array.from(map.values()).sort((a, b) => b.sold - a.sold),
-    grand,
-  };
+export interface RevenueDTO {
+  revenue: number;
+  orders: number;
+  averageOrder: number;
+  products: ProductRevenue[];
 }
 
 const RevenuePage: React.FC = () => {
-  const [orders, setOrders] = useState<OrderDTO[]>([]);
+  const [report, setReport] = useState<RevenueDTO | null>(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
 
@@ -70,7 +34,7 @@ const RevenuePage: React.FC = () => {
       return;
     }
 
-    fetch(`${API_BASE}/api/orders/my`, {
+    fetch(`${API_BASE}/api/revenue`, {
       headers: {
         Authorization: `Bearer ${token}`,
         "Content-Type": "application/json",
@@ -83,22 +47,19 @@ const RevenuePage: React.FC = () => {
         }
         return res.json();
       })
-      .then((data: OrderDTO[]) => setOrders(data))
+      .then((data: RevenueDTO) => setReport(data))
       .catch((e) => {
         const msg = e instanceof Error ? e.message : "Unknown error";
         setError(msg);
-        toast.error(`Orders load failed: ${msg}`);
+        toast.error(`Revenue load failed: ${msg}`);
       })
       .finally(() => setLoading(false));
   }, [API_BASE]);
 
-  const { list: products, grand } = useMemo(
-    () => accumulateProductsByName(orders),
-    [orders]
-  );
-
-  const totalOrders = orders.length;
-  const avg = totalOrders ? grand / totalOrders : 0;
+  const products = report?.products ?? [];
+  const grand = report?.revenue ?? 0;
+  const totalOrders = report?.orders ?? 0;
+  const avg = report?.averageOrder ?? 0;
 
   return (
     <div className="space-y-6">
@@ -157,11 +118,11 @@ const RevenuePage: React.FC = () => {
                 )}
                 {products.map((p, i) => (
                   <tr
-                    key={p.name + i}
+                    key={p.productId}
                     className="border-t border-neutral-800 hover:bg-neutral-800/30 transition"
                   >
                     <td className="py-3 px-4 text-muted">{i + 1}</td>
-                    <td className="py-3 px-4 text-light">{p.name}</td>
+                    <td className="py-3 px-4 text-light">{p.name ?? "Deleted product"}</td>
                     <td className="py-3 px-4">{p.sold}</td>
                     <td className="py-3 px-4 font-medium">€{p.revenue.toFixed(2)}</td>
                   </tr>